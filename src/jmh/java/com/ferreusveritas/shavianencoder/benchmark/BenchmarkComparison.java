@@ -0,0 +1,103 @@
+package com.ferreusveritas.shavianencoder.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Prints two JMH JSON result files side by side: score, normalized allocation and the change between them.
+ * Usage: BenchmarkComparison baseline.json candidate.json
+ */
+public class BenchmarkComparison {
+	
+	private static final String ALLOCATION = "gc.alloc.rate.norm";
+	
+	private record Result(double score, double error, String unit, double allocated) {}
+	
+	public static void main(String[] args) throws IOException {
+		if (args.length != 2) {
+			System.err.println("Usage: BenchmarkComparison <baseline.json> <candidate.json>");
+			System.exit(2);
+		}
+		Map<String, Result> baseline = read(Path.of(args[0]));
+		Map<String, Result> candidate = read(Path.of(args[1]));
+		
+		System.out.printf("%-64s %-6s %14s %14s %8s %12s %12s %8s%n", "Benchmark", "Unit", "Baseline", "Candidate", "Change", "B/op base", "B/op cand", "Change");
+		Map<String, Result> all = new TreeMap<>(baseline);
+		candidate.forEach(all::putIfAbsent);
+		for (String name : all.keySet()) {
+			Result before = baseline.get(name);
+			Result after = candidate.get(name);
+			System.out.printf("%-64s %-6s %14s %14s %8s %12s %12s %8s%n",
+				name,
+				(before != null ? before : after).unit(),
+				before != null ? format(before.score(), before.error()) : "-",
+				after != null ? format(after.score(), after.error()) : "-",
+				before != null && after != null ? change(before.score(), after.score()) : "",
+				before != null ? format(before.allocated()) : "-",
+				after != null ? format(after.allocated()) : "-",
+				before != null && after != null ? change(before.allocated(), after.allocated()) : ""
+			);
+		}
+	}
+	
+	private static Map<String, Result> read(Path file) throws IOException {
+		Map<String, Result> results = new LinkedHashMap<>();
+		for (JsonNode run : new ObjectMapper().readTree(file.toFile())) {
+			StringBuilder name = new StringBuilder(shortName(run.path("benchmark").asText()));
+			Iterator<Map.Entry<String, JsonNode>> params = run.path("params").fields();
+			while (params.hasNext()) {
+				Map.Entry<String, JsonNode> param = params.next();
+				name.append(' ').append(param.getKey()).append('=').append(param.getValue().asText());
+			}
+			JsonNode primary = run.path("primaryMetric");
+			results.put(name.toString(), new Result(
+				primary.path("score").asDouble(),
+				primary.path("scoreError").asDouble(Double.NaN),
+				primary.path("scoreUnit").asText(),
+				allocation(run.path("secondaryMetrics"))
+			));
+		}
+		return results;
+	}
+	
+	/** Older JMH versions prefix secondary metric names with a middle dot */
+	private static double allocation(JsonNode secondary) {
+		Iterator<Map.Entry<String, JsonNode>> metrics = secondary.fields();
+		while (metrics.hasNext()) {
+			Map.Entry<String, JsonNode> metric = metrics.next();
+			if (metric.getKey().endsWith(ALLOCATION)) {
+				return metric.getValue().path("score").asDouble();
+			}
+		}
+		return Double.NaN;
+	}
+	
+	/** Class and method, without the package, which isn't the same for every benchmark */
+	private static String shortName(String benchmark) {
+		int method = benchmark.lastIndexOf('.');
+		return benchmark.substring(benchmark.lastIndexOf('.', method - 1) + 1);
+	}
+	
+	private static String format(double score, double error) {
+		return Double.isNaN(error) || score == 0 ? String.format("%.3f", score) : String.format("%.3f +-%.0f%%", score, 100 * error / score);
+	}
+	
+	private static String format(double value) {
+		return Double.isNaN(value) ? "-" : String.format("%.0f", value);
+	}
+	
+	private static String change(double before, double after) {
+		if (Double.isNaN(before) || Double.isNaN(after) || before == 0) {
+			return "";
+		}
+		return String.format("%+.1f%%", 100 * (after - before) / before);
+	}
+	
+}
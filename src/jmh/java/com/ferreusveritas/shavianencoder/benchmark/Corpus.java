@@ -0,0 +1,32 @@
+package com.ferreusveritas.shavianencoder.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/** Fixed English texts of increasing size, so results stay comparable between commits */
+public enum Corpus {
+	
+	SHORT("/corpus/short.txt"), // One sentence
+	MEDIUM("/corpus/medium.txt"), // Two paragraphs
+	LONG("/corpus/long.txt"); // A few pages of dialogue and narration
+	
+	private final String resource;
+	
+	Corpus(String resource) {
+		this.resource = resource;
+	}
+	
+	public String text() {
+		try (InputStream in = Corpus.class.getResourceAsStream(resource)) {
+			if (in == null) {
+				throw new IllegalStateException("Missing corpus " + resource);
+			}
+			return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+}
@@ -0,0 +1,29 @@
+package com.ferreusveritas.shavianencoder.benchmark;
+
+import com.ferreusveritas.shavianencoder.core.dictionary.Dictionary;
+import com.ferreusveritas.shavianencoder.details.dictionary.ISLEDictionary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/** Parsing the full ISLE dictionary, which dominates a cold start without a lexicon snapshot */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class DictionaryImportBenchmark {
+	
+	@Benchmark
+	public Dictionary importIsle() throws IOException {
+		return new ISLEDictionary(Fixtures.DICTIONARY);
+	}
+	
+}
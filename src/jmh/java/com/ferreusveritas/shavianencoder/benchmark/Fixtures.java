@@ -0,0 +1,32 @@
+package com.ferreusveritas.shavianencoder.benchmark;
+
+import com.ferreusveritas.shavianencoder.core.dictionary.Dictionary;
+import com.ferreusveritas.shavianencoder.core.encoder.Mapper;
+import com.ferreusveritas.shavianencoder.core.lexicon.Lexicon;
+import com.ferreusveritas.shavianencoder.details.dictionary.ISLEDictionary;
+import com.ferreusveritas.shavianencoder.details.encoder.ShawMapper;
+import com.ferreusveritas.shavianencoder.details.encoder.ShawMappingData;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.io.IOException;
+
+/** Builds the pipeline pieces the same way DictionaryPipelineFactory does, minus Spring */
+public final class Fixtures {
+	
+	public static final String DICTIONARY = "/data/ISLEDict.txt";
+	
+	private Fixtures() {}
+	
+	public static Dictionary dictionary() throws IOException {
+		return new ISLEDictionary(DICTIONARY);
+	}
+	
+	public static Mapper mapper(ShawMappingData mappingData) {
+		return new ShawMapper(mappingData.getIpa2shaw(), new SimpleMeterRegistry());
+	}
+	
+	public static Lexicon lexicon(Dictionary dictionary, ShawMappingData mappingData) {
+		return new Lexicon(mapper(mappingData), dictionary);
+	}
+	
+}
@@ -0,0 +1,44 @@
+package com.ferreusveritas.shavianencoder.benchmark;
+
+import com.ferreusveritas.shavianencoder.core.dictionary.Dictionary;
+import com.ferreusveritas.shavianencoder.core.encoder.Mapper;
+import com.ferreusveritas.shavianencoder.core.lexicon.Lexicon;
+import com.ferreusveritas.shavianencoder.details.encoder.ShawMappingData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/** Mapping every dictionary pronunciation to Shavian and packing the result, from an already parsed dictionary */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class LexiconBenchmark {
+	
+	private Dictionary dictionary;
+	private Mapper mapper;
+	
+	@Setup
+	public void setup() throws IOException {
+		dictionary = Fixtures.dictionary();
+		mapper = Fixtures.mapper(new ShawMappingData());
+	}
+	
+	@Benchmark
+	public Lexicon build() {
+		return new Lexicon(mapper, dictionary);
+	}
+	
+}
@@ -0,0 +1,125 @@
+package com.ferreusveritas.shavianencoder.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop load test against a running server: each worker posts to /encode back to back, sending the long
+ * corpus for a fraction of requests and the short one otherwise, then latency percentiles are printed per size.
+ * Usage: LoadTest [baseUrl] [workers] [seconds] [longPercent]
+ */
+public class LoadTest {
+	
+	private static final ObjectMapper JSON = new ObjectMapper();
+	
+	/** Latencies of one request size, in nanoseconds, collected per worker to avoid contention */
+	private static final class Latencies {
+		
+		private long[] values = new long[1024];
+		private int count;
+		
+		void add(long nanos) {
+			if (count == values.length) {
+				values = Arrays.copyOf(values, count * 2);
+			}
+			values[count++] = nanos;
+		}
+		
+	}
+	
+	public static void main(String[] args) throws Exception {
+		String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+		int workers = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+		int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 60;
+		int longPercent = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+		
+		URI uri = URI.create(baseUrl + "/encode");
+		String shortBody = JSON.writeValueAsString(Map.of("message", Corpus.SHORT.text()));
+		String longBody = JSON.writeValueAsString(Map.of("message", Corpus.LONG.text()));
+		HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+		
+		System.out.printf("%d workers for %d s against %s, %d%% long requests, first 10%% is warmup%n", workers, seconds, uri, longPercent);
+		long start = System.nanoTime();
+		long warmupEnd = start + Duration.ofSeconds(seconds).toNanos() / 10;
+		long end = start + Duration.ofSeconds(seconds).toNanos();
+		AtomicLong errors = new AtomicLong();
+		
+		List<Latencies> shortLatencies = new ArrayList<>();
+		List<Latencies> longLatencies = new ArrayList<>();
+		List<Thread> threads = new ArrayList<>();
+		for (int w = 0; w < workers; w++) {
+			Latencies shorts = new Latencies();
+			Latencies longs = new Latencies();
+			shortLatencies.add(shorts);
+			longLatencies.add(longs);
+			Random random = new Random(w); // Same request mix on every run
+			Thread thread = new Thread(() -> {
+				while (System.nanoTime() < end) {
+					boolean isLong = random.nextInt(100) < longPercent;
+					HttpRequest request = HttpRequest.newBuilder(uri)
+						.header("Content-Type", "application/json")
+						.POST(HttpRequest.BodyPublishers.ofString(isLong ? longBody : shortBody))
+						.build();
+					long sent = System.nanoTime();
+					try {
+						HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+						if (response.statusCode() != 200) {
+							errors.incrementAndGet();
+						} else if (sent >= warmupEnd) {
+							(isLong ? longs : shorts).add(System.nanoTime() - sent);
+						}
+					} catch (IOException e) {
+						errors.incrementAndGet();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						return;
+					}
+				}
+			}, "load-" + w);
+			thread.start();
+			threads.add(thread);
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		
+		double measured = (end - warmupEnd) / 1e9;
+		System.out.printf("%-6s %8s %8s %9s %9s %9s %9s %9s%n", "Size", "Count", "Req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+		report("short", shortLatencies, measured);
+		report("long", longLatencies, measured);
+		System.out.printf("Errors: %d%n", errors.get());
+	}
+	
+	private static void report(String name, List<Latencies> perWorker, double seconds) {
+		long[] all = perWorker.stream()
+			.flatMapToLong(l -> Arrays.stream(l.values, 0, l.count))
+			.sorted()
+			.toArray();
+		if (all.length == 0) {
+			System.out.printf("%-6s %8d%n", name, 0);
+			return;
+		}
+		System.out.printf("%-6s %8d %8.1f %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+			name, all.length, all.length / seconds,
+			percentile(all, 0.50), percentile(all, 0.90), percentile(all, 0.99), percentile(all, 0.999),
+			all[all.length - 1] / 1e6
+		);
+	}
+	
+	private static double percentile(long[] sorted, double p) {
+		return sorted[(int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1)] / 1e6;
+	}
+	
+}
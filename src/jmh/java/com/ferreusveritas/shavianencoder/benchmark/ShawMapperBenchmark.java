@@ -0,0 +1,68 @@
+package com.ferreusveritas.shavianencoder.benchmark;
+
+import com.ferreusveritas.shavianencoder.core.dictionary.Dictionary;
+import com.ferreusveritas.shavianencoder.core.dictionary.DictionaryEntry;
+import com.ferreusveritas.shavianencoder.core.dictionary.Pronunciation;
+import com.ferreusveritas.shavianencoder.core.encoder.Mapper;
+import com.ferreusveritas.shavianencoder.details.encoder.ShawMappingData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** IPA to Shavian for a fixed, evenly spaced sample of dictionary pronunciations. Scores are per pronunciation */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShawMapperBenchmark {
+	
+	private static final int SAMPLE = 10_000;
+	
+	private Mapper mapper;
+	private Pronunciation[] pronunciations;
+	
+	@Setup
+	public void setup() throws IOException {
+		Dictionary dictionary = Fixtures.dictionary();
+		mapper = Fixtures.mapper(new ShawMappingData());
+		List<String> words = dictionary.words().stream().sorted().toList();
+		int step = Math.max(1, words.size() / SAMPLE);
+		List<Pronunciation> sample = new ArrayList<>(SAMPLE);
+		for (int i = 0; i < words.size() && sample.size() < SAMPLE; i += step) {
+			for (DictionaryEntry entry : dictionary.entries(words.get(i))) {
+				if (sample.size() < SAMPLE) {
+					sample.addAll(entry.pronunciations().subList(0, Math.min(1, entry.pronunciations().size())));
+				}
+			}
+		}
+		for (int i = 0; sample.size() < SAMPLE; i++) { // Cycle a small dictionary so the operation count stays exact
+			sample.add(sample.get(i));
+		}
+		pronunciations = sample.toArray(Pronunciation[]::new);
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(SAMPLE)
+	public void map(Blackhole blackhole) {
+		for (Pronunciation pronunciation : pronunciations) {
+			blackhole.consume(mapper.map(pronunciation));
+		}
+	}
+	
+}
@@ -0,0 +1,51 @@
+package com.ferreusveritas.shavianencoder.benchmark;
+
+import com.ferreusveritas.shavianencoder.core.encoder.SpeechTagger;
+import com.ferreusveritas.shavianencoder.details.encoder.SentenceReader;
+import com.ferreusveritas.shavianencoder.details.encoder.SpeechTaggerImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Tokenizing, POS tagging and lemmatizing each sentence of a corpus, as the transliterator calls it */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpeechTaggerBenchmark {
+	
+	@Param({"SHORT", "MEDIUM", "LONG"})
+	private Corpus corpus;
+	
+	private SpeechTagger tagger;
+	private List<String> sentences;
+	
+	@Setup
+	public void setup() {
+		tagger = new SpeechTaggerImpl(1, new SimpleMeterRegistry());
+		sentences = SentenceReader.split(corpus.text());
+	}
+	
+	@Benchmark
+	public void tagSentence(Blackhole blackhole) {
+		for (String sentence : sentences) {
+			blackhole.consume(tagger.tagSentence(sentence));
+		}
+	}
+	
+}
@@ -0,0 +1,79 @@
+package com.ferreusveritas.shavianencoder.benchmark;
+
+import com.ferreusveritas.shavianencoder.core.encoder.Transliterator;
+import com.ferreusveritas.shavianencoder.core.lexicon.ContractionIndex;
+import com.ferreusveritas.shavianencoder.core.lexicon.Lexicon;
+import com.ferreusveritas.shavianencoder.details.cache.LruCache;
+import com.ferreusveritas.shavianencoder.details.encoder.ShavianTransliterator;
+import com.ferreusveritas.shavianencoder.details.encoder.ShawMappingData;
+import com.ferreusveritas.shavianencoder.details.encoder.SpeechTaggerImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The whole pipeline from English text to Shavian. The token and sentence caches are off by default so every
+ * invocation pays for tagging and lookup; set cacheSize to see the warm path instead.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class TransliteratorBenchmark {
+	
+	@Param({"SHORT", "MEDIUM", "LONG"})
+	private Corpus corpus;
+	
+	@Param({"0"})
+	private int cacheSize;
+	
+	@Param({"false", "true"})
+	private boolean fastTagging;
+	
+	@Param({"0", "4096"})
+	private int parallelThreshold;
+	
+	private Transliterator transliterator;
+	private String text;
+	
+	@Setup
+	public void setup() throws IOException {
+		ShawMappingData mappingData = new ShawMappingData();
+		Lexicon lexicon = Fixtures.lexicon(Fixtures.dictionary(), mappingData);
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		transliterator = new ShavianTransliterator(
+			new SpeechTaggerImpl(1, meterRegistry),
+			mappingData,
+			lexicon,
+			ContractionIndex.of(lexicon),
+			new LruCache<>(cacheSize),
+			new LruCache<>(cacheSize),
+			fastTagging,
+			ForkJoinPool.commonPool(),
+			parallelThreshold,
+			meterRegistry
+		);
+		text = corpus.text();
+	}
+	
+	@Benchmark
+	public String transliterate() {
+		return transliterator.transliterate(text);
+	}
+	
+}
@@ -0,0 +1,88 @@
+package com.ferreusveritas.shavianencoder.details.encoder;
+
+import com.ferreusveritas.shavianencoder.benchmark.Corpus;
+import com.ferreusveritas.shavianencoder.benchmark.Fixtures;
+import com.ferreusveritas.shavianencoder.core.lexicon.ContractionIndex;
+import com.ferreusveritas.shavianencoder.core.lexicon.Lexicon;
+import com.ferreusveritas.shavianencoder.core.model.SpeechEntity;
+import com.ferreusveritas.shavianencoder.details.cache.LruCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per-token decision alone, over the tagged tokens of the long corpus with no token cache. It lives in the
+ * transliterator's package to reach the token path, which isn't public.
+ * Scores are per token, so with {@code -prof gc} the gc.alloc.rate.norm column is bytes allocated per token.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class TokenPathBenchmark {
+	
+	private static final int TOKENS = 1_000;
+	
+	private ShavianTransliterator transliterator;
+	private SpeechEntity[] tokens;
+	
+	@Setup
+	public void setup() throws IOException {
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		ShawMappingData mappingData = new ShawMappingData();
+		Lexicon lexicon = Fixtures.lexicon(Fixtures.dictionary(), mappingData);
+		SpeechTaggerImpl tagger = new SpeechTaggerImpl(1, meterRegistry);
+		transliterator = new ShavianTransliterator(
+			tagger,
+			mappingData,
+			lexicon,
+			ContractionIndex.of(lexicon),
+			new LruCache<>(0),
+			new LruCache<>(0),
+			false,
+			ForkJoinPool.commonPool(),
+			0,
+			meterRegistry
+		);
+		
+		List<SpeechEntity> tagged = new ArrayList<>(TOKENS);
+		for (String sentence : SentenceReader.split(Corpus.LONG.text())) {
+			for (SpeechEntity entity : tagger.tagSentence(sentence)) {
+				if (!entity.pos().isWhitespace() && tagged.size() < TOKENS) {
+					tagged.add(entity);
+				}
+			}
+		}
+		for (int i = 0; tagged.size() < TOKENS; i++) { // Cycle a short corpus so the operation count stays exact
+			tagged.add(tagged.get(i));
+		}
+		tokens = tagged.toArray(SpeechEntity[]::new);
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(TOKENS)
+	public void transliterateToken(Blackhole blackhole) {
+		for (SpeechEntity token : tokens) {
+			blackhole.consume(transliterator.transliterateToken(token));
+		}
+	}
+	
+}
@@ -0,0 +1,81 @@
+package com.ferreusveritas.shavianencoder.app;
+
+import com.ferreusveritas.shavianencoder.app.cli.CorpusConverter;
+import com.ferreusveritas.shavianencoder.core.services.LexiconService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.Banner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Converts a corpus of text files offline, with the same configuration as the web app but without starting a server.
+ * <pre>
+ * java -cp shavian-encoder.jar -Dloader.main=com.ferreusveritas.shavianencoder.app.ShavianEncoderCli \
+ *     org.springframework.boot.loader.launch.PropertiesLauncher \
+ *     --out=shavian/ [--glob=*.txt] [--threads=N] [--journal=FILE] INPUT...
+ * </pre>
+ * Inputs are files or directories, which are walked for files matching the glob. Any other --name=value argument
+ * sets an application property as usual, e.g. --shavian.lexicon.snapshot=...
+ * Progress is journaled (by default to .shavian-progress in the output directory) so rerunning the same command
+ * after a crash only converts what is left.
+ */
+public class ShavianEncoderCli {
+	
+	public static void main(String[] args) throws Exception {
+		Path out = null;
+		Path journal = null;
+		String glob = "*.txt";
+		int threads = Runtime.getRuntime().availableProcessors();
+		List<Path> inputs = new ArrayList<>();
+		for (String arg : args) {
+			if (arg.startsWith("--out=")) {
+				out = Path.of(arg.substring("--out=".length()));
+			} else if (arg.startsWith("--journal=")) {
+				journal = Path.of(arg.substring("--journal=".length()));
+			} else if (arg.startsWith("--glob=")) {
+				glob = arg.substring("--glob=".length());
+			} else if (arg.startsWith("--threads=")) {
+				threads = Integer.parseInt(arg.substring("--threads=".length()));
+			} else if (!arg.startsWith("--")) {
+				inputs.add(Path.of(arg));
+			}
+		}
+		if (out == null || inputs.isEmpty()) {
+			System.err.println("Usage: ShavianEncoderCli --out=DIR [--glob=*.txt] [--threads=N] [--journal=FILE] INPUT...");
+			System.exit(2);
+		}
+		
+		ConfigurableApplicationContext context = new SpringApplicationBuilder(ShavianEncoderApplication.class)
+			.web(WebApplicationType.NONE)
+			.bannerMode(Banner.Mode.OFF)
+			.run(args);
+		CorpusConverter.Summary summary;
+		try {
+			CorpusConverter converter = new CorpusConverter(
+				context.getBean(LexiconService.class).current().transliterator(),
+				context.getBean(MeterRegistry.class).counter("shavian.tokens"),
+				out,
+				journal != null ? journal : out.resolve(".shavian-progress"),
+				glob,
+				threads
+			);
+			summary = converter.convert(inputs);
+		} catch (Exception e) {
+			SpringApplication.exit(context, () -> 1);
+			throw e;
+		}
+		
+		System.out.printf("Converted %d files (%d MiB), skipped %d already done, %d failed in %.1f s%n",
+			summary.converted(), summary.bytes() >> 20, summary.skipped(), summary.failed(), summary.nanos() / 1e9);
+		System.out.printf("%.1f files/s, %.0f tokens/s%n", summary.filesPerSecond(), summary.tokensPerSecond());
+		int exitCode = summary.failed() > 0 ? 1 : 0;
+		System.exit(SpringApplication.exit(context, () -> exitCode));
+	}
+	
+}
@@ -0,0 +1,233 @@
+package com.ferreusveritas.shavianencoder.app.cli;
+
+import com.ferreusveritas.shavianencoder.core.encoder.Transliterator;
+import io.micrometer.core.instrument.Counter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Transliterates every matching file under a set of input paths into a mirror tree under an output directory,
+ * one file per thread. Each output is written to a temp file and moved into place, then recorded in a journal,
+ * so a run that is interrupted can be restarted and will skip whatever it already finished.
+ */
+public class CorpusConverter {
+	
+	private static final Logger LOG = LoggerFactory.getLogger(CorpusConverter.class);
+	
+	/** What a run did, for the closing report */
+	public record Summary(
+		int converted,
+		int skipped,
+		int failed,
+		long bytes,
+		long tokens,
+		long nanos
+	) {
+		
+		public double filesPerSecond() {
+			return converted * 1e9 / Math.max(nanos, 1);
+		}
+		
+		public double tokensPerSecond() {
+			return tokens * 1e9 / Math.max(nanos, 1);
+		}
+		
+	}
+	
+	/** An input file and where its output goes, relative to the output directory */
+	private record Job(Path input, Path output, String key) {}
+	
+	private final Transliterator transliterator;
+	private final Counter tokenCounter;
+	private final Path outputDir;
+	private final Path journal;
+	private final PathMatcher matcher;
+	private final int threads;
+	
+	/**
+	 * @param tokenCounter the transliterator's token counter, read before and after to report tokens per second
+	 * @param glob which file names to convert, e.g. *.txt
+	 * @param journal the progress journal, created if it doesn't exist
+	 */
+	public CorpusConverter(
+		Transliterator transliterator,
+		Counter tokenCounter,
+		Path outputDir,
+		Path journal,
+		String glob,
+		int threads
+	) {
+		this.transliterator = transliterator;
+		this.tokenCounter = tokenCounter;
+		this.outputDir = outputDir;
+		this.journal = journal;
+		this.matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+		this.threads = threads;
+	}
+	
+	public Summary convert(List<Path> inputs) throws IOException, InterruptedException {
+		long start = System.nanoTime();
+		double tokensBefore = tokenCounter.count();
+		Set<String> done = readJournal();
+		List<Job> jobs = findJobs(inputs);
+		
+		AtomicInteger converted = new AtomicInteger();
+		AtomicInteger skipped = new AtomicInteger();
+		AtomicInteger failed = new AtomicInteger();
+		LongAdder bytes = new LongAdder();
+		
+		Files.createDirectories(outputDir);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try (BufferedWriter journalWriter = Files.newBufferedWriter(journal, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+			List<Future<?>> futures = new ArrayList<>(jobs.size());
+			for (Job job : jobs) {
+				futures.add(executor.submit(() -> {
+					try {
+						String entry = journalEntry(job);
+						if (done.contains(entry) && Files.exists(job.output())) {
+							skipped.incrementAndGet();
+							return;
+						}
+						convert(job);
+						bytes.add(Files.size(job.input()));
+						synchronized (journalWriter) {
+							journalWriter.write(entry);
+							journalWriter.newLine();
+							journalWriter.flush();
+						}
+						converted.incrementAndGet();
+					} catch (IOException | RuntimeException e) {
+						failed.incrementAndGet();
+						LOG.error("Failed to convert {}", job.input(), e);
+					}
+				}));
+			}
+			for (Future<?> future : futures) {
+				try {
+					future.get();
+				} catch (ExecutionException e) {
+					throw new IllegalStateException(e.getCause()); // Jobs catch their own failures
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		return new Summary(
+			converted.get(),
+			skipped.get(),
+			failed.get(),
+			bytes.sum(),
+			(long) (tokenCounter.count() - tokensBefore),
+			System.nanoTime() - start
+		);
+	}
+	
+	/** Stream one file through the transliterator into a temp file beside its output, then move it into place */
+	private void convert(Job job) throws IOException {
+		Path dir = job.output().toAbsolutePath().getParent();
+		Files.createDirectories(dir);
+		Path temp = Files.createTempFile(dir, job.output().getFileName().toString(), ".tmp");
+		try {
+			try (
+				Reader reader = new InputStreamReader(Files.newInputStream(job.input()), StandardCharsets.UTF_8);
+				Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)
+			) {
+				transliterator.transliterate(reader, writer);
+			}
+			Files.move(temp, job.output(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+	
+	/**
+	 * Files under each input, with outputs under a directory named after that input. A file given directly
+	 * goes straight into the output directory.
+	 * @throws IllegalArgumentException if two inputs would be written to the same output, or one over the journal
+	 */
+	private List<Job> findJobs(List<Path> inputs) throws IOException {
+		List<Job> jobs = new ArrayList<>();
+		for (Path input : inputs) {
+			if (Files.isRegularFile(input)) {
+				Path relative = input.getFileName();
+				jobs.add(new Job(input, outputDir.resolve(relative), relative.toString()));
+				continue;
+			}
+			Path root = input.toAbsolutePath().normalize();
+			try (Stream<Path> files = Files.walk(root)) {
+				files.filter(Files::isRegularFile)
+					.filter(file -> matcher.matches(file.getFileName()))
+					.sorted()
+					.forEach(file -> {
+						Path relative = root.getFileName().resolve(root.relativize(file));
+						jobs.add(new Job(file, outputDir.resolve(relative), relative.toString().replace('\\', '/')));
+					});
+			}
+		}
+		// Same named files given directly, or directories of the same name, would overwrite each other and share a
+		// journal entry, so the second would be skipped as already done on a rerun
+		Map<Path, Path> outputs = new HashMap<>();
+		Path journalPath = journal.toAbsolutePath().normalize();
+		for (Job job : jobs) {
+			Path output = job.output().toAbsolutePath().normalize();
+			Path other = outputs.putIfAbsent(output, job.input());
+			if (other != null) {
+				throw new IllegalArgumentException("Both " + other + " and " + job.input() + " would be converted to " + job.output());
+			}
+			if (output.equals(journalPath)) {
+				throw new IllegalArgumentException(job.input() + " would be converted over the journal " + journal);
+			}
+		}
+		return jobs;
+	}
+	
+	/** Size and modification time are part of the entry so that an input edited since it was converted is redone */
+	private static String journalEntry(Job job) {
+		try {
+			return Files.size(job.input()) + "\t" + Files.getLastModifiedTime(job.input()).toMillis() + "\t" + job.key();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	/** A line cut short by a crash never matches an entry, so its file is simply converted again */
+	private Set<String> readJournal() throws IOException {
+		if (!Files.exists(journal)) {
+			return Set.of();
+		}
+		try (Stream<String> lines = Files.lines(journal, StandardCharsets.UTF_8)) {
+			Set<String> done = new HashSet<>();
+			lines.forEach(done::add);
+			LOG.info("Resuming from {} with {} files already converted", journal, done.size());
+			return done;
+		}
+	}
+	
+}
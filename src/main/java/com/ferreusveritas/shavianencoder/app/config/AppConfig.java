@@ -1,69 +1,82 @@
 package com.ferreusveritas.shavianencoder.app.config;
 
-import com.ferreusveritas.shavianencoder.core.dictionary.Dictionary;
-import com.ferreusveritas.shavianencoder.core.encoder.Mapper;
 import com.ferreusveritas.shavianencoder.core.encoder.SpeechTagger;
-import com.ferreusveritas.shavianencoder.core.encoder.Transliterator;
-import com.ferreusveritas.shavianencoder.core.lexicon.Lexicon;
-import com.ferreusveritas.shavianencoder.details.dictionary.ISLEDictionary;
-import com.ferreusveritas.shavianencoder.details.encoder.ShawMappingData;
-import com.ferreusveritas.shavianencoder.details.encoder.ShavianTransliterator;
-import com.ferreusveritas.shavianencoder.details.encoder.ShawMapper;
+import com.ferreusveritas.shavianencoder.details.cache.LruCacheMetrics;
 import com.ferreusveritas.shavianencoder.details.encoder.SpeechTaggerImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
-import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ForkJoinPool;
 
 @Configuration
 public class AppConfig {
 	
 	@Bean
-	Transliterator shavianEncoder(
-		Dictionary dictionary,
+	DictionaryPipelineFactory pipelineFactory(
 		SpeechTagger speechTagger,
-		ShawMappingData shawMappingData,
-		Lexicon lexicon
-	) throws IOException {
-		return new ShavianTransliterator(
-			dictionary,
+		MeterRegistry meterRegistry,
+		@Value("${shavian.dictionary.file:}") String dictionaryFile,
+		@Value("${shavian.mapping.overrides:}") String mappingOverrides,
+		@Value("${shavian.lexicon.snapshot:}") String snapshot,
+		@Value("${shavian.cache.token.enabled:true}") boolean tokenCacheEnabled,
+		@Value("${shavian.cache.token.max-size:100000}") int tokenCacheSize,
+		@Value("${shavian.cache.sentence.max-size:10000}") int sentenceCacheSize,
+		@Value("${shavian.cache.sentence.ttl:1h}") Duration sentenceCacheTtl,
+		@Value("${shavian.tagger.fast:false}") boolean fastTagging,
+		ForkJoinPool parallelPool,
+		@Value("${shavian.parallel.threshold:20000}") int parallelThreshold
+	) {
+		return new DictionaryPipelineFactory(
 			speechTagger,
-			shawMappingData,
-			lexicon
+			meterRegistry,
+			dictionaryFile,
+			mappingOverrides,
+			snapshot,
+			tokenCacheEnabled ? tokenCacheSize : 0,
+			sentenceCacheSize,
+			sentenceCacheTtl,
+			fastTagging,
+			parallelPool,
+			parallelThreshold
 		);
 	}
 	
+	// The caches are replaced on every reload, so the meters follow whichever pipeline was built last
 	@Bean
-	Lexicon lexicon(
-		Mapper mapper,
-		Dictionary dictionary
+	MeterBinder tokenCacheMetrics(
+		DictionaryPipelineFactory pipelineFactory
 	) {
-		return new Lexicon(
-			mapper,
-			dictionary
-		);
-	}
-	
-	@Bean
-	Dictionary dictionary() throws IOException {
-		return new ISLEDictionary("/data/ISLEDict.txt");
+		return new LruCacheMetrics("shavian.token", pipelineFactory::tokenCache);
 	}
 	
 	@Bean
-	SpeechTagger speechTagger() {
-		return new SpeechTaggerImpl();
+	MeterBinder sentenceCacheMetrics(
+		DictionaryPipelineFactory pipelineFactory
+	) {
+		return new LruCacheMetrics("shavian.sentence", pipelineFactory::sentenceCache);
 	}
 	
 	@Bean
-	ShawMappingData mapping() {
-		return new ShawMappingData();
+	SpeechTagger speechTagger(
+		@Value("${shavian.tagger.pool-size:0}") int poolSize,
+		MeterRegistry meterRegistry
+	) {
+		return new SpeechTaggerImpl(
+			poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors(),
+			meterRegistry
+		);
 	}
 	
+	/** Shared by every large request, so one document can use the idle cores without each request adding threads */
 	@Bean
-	Mapper mapper(
-		ShawMappingData shawMappingData
+	ForkJoinPool parallelPool(
+		@Value("${shavian.parallel.threads:0}") int threads
 	) {
-		return new ShawMapper(shawMappingData.getIpa2shaw());
+		return new ForkJoinPool(threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
 	}
 	
 }
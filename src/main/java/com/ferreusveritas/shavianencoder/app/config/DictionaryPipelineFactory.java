@@ -0,0 +1,173 @@
+package com.ferreusveritas.shavianencoder.app.config;
+
+import com.ferreusveritas.shavianencoder.core.dictionary.Dictionary;
+import com.ferreusveritas.shavianencoder.core.encoder.Mapper;
+import com.ferreusveritas.shavianencoder.core.encoder.SpeechTagger;
+import com.ferreusveritas.shavianencoder.core.lexicon.ContractionIndex;
+import com.ferreusveritas.shavianencoder.core.lexicon.Lexicon;
+import com.ferreusveritas.shavianencoder.core.lexicon.LexiconVersion;
+import com.ferreusveritas.shavianencoder.core.lexicon.ReverseLexicon;
+import com.ferreusveritas.shavianencoder.core.model.SpeechEntity;
+import com.ferreusveritas.shavianencoder.core.model.TransliteratedToken;
+import com.ferreusveritas.shavianencoder.core.services.Pipeline;
+import com.ferreusveritas.shavianencoder.core.services.PipelineFactory;
+import com.ferreusveritas.shavianencoder.details.cache.LruCache;
+import com.ferreusveritas.shavianencoder.details.decoder.ShavianDecoder;
+import com.ferreusveritas.shavianencoder.details.dictionary.ISLEDictionary;
+import com.ferreusveritas.shavianencoder.details.dictionary.LazyDictionary;
+import com.ferreusveritas.shavianencoder.details.encoder.ShavianTransliterator;
+import com.ferreusveritas.shavianencoder.details.encoder.ShawMapper;
+import com.ferreusveritas.shavianencoder.details.encoder.ShawMappingData;
+import com.ferreusveritas.shavianencoder.details.lexicon.LexiconSnapshot;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Builds a pipeline from the dictionary and the mapping tables, reading both afresh each time.
+ * Each version gets its own caches so that nothing transliterated with an old version is served by a new one.
+ * The dictionary is only needed to build the lexicon and is left for the garbage collector once that is done.
+ */
+public class DictionaryPipelineFactory implements PipelineFactory {
+	
+	private static final Logger LOG = LoggerFactory.getLogger(DictionaryPipelineFactory.class);
+	
+	private static final String DICTIONARY = "/data/ISLEDict.txt";
+	
+	private final SpeechTagger speechTagger;
+	private final MeterRegistry meterRegistry;
+	private final String dictionaryFile;
+	private final String mappingOverrides;
+	private final String snapshot;
+	private final int tokenCacheSize;
+	private final int sentenceCacheSize;
+	private final Duration sentenceCacheTtl;
+	private final boolean fastTagging;
+	private final ForkJoinPool parallelPool;
+	private final int parallelThreshold;
+	
+	private volatile LruCache<SpeechEntity, TransliteratedToken> tokenCache = new LruCache<>(0);
+	private volatile LruCache<String, String> sentenceCache = new LruCache<>(0);
+	
+	/**
+	 * @param dictionaryFile ISLE dictionary to read, blank for the one bundled on the classpath
+	 * @param mappingOverrides JSON file of IPA to Shavian mappings applied over the built in tables, blank for none
+	 * @param snapshot lexicon snapshot file, blank to always build the lexicon
+	 * @param fastTagging skip the POS and lemma models for sentences whose spelling usually doesn't depend on them
+	 * @param parallelThreshold inputs of at least this many characters are split over the parallel pool, 0 for never
+	 */
+	public DictionaryPipelineFactory(
+		SpeechTagger speechTagger,
+		MeterRegistry meterRegistry,
+		String dictionaryFile,
+		String mappingOverrides,
+		String snapshot,
+		int tokenCacheSize,
+		int sentenceCacheSize,
+		Duration sentenceCacheTtl,
+		boolean fastTagging,
+		ForkJoinPool parallelPool,
+		int parallelThreshold
+	) {
+		this.speechTagger = speechTagger;
+		this.meterRegistry = meterRegistry;
+		this.dictionaryFile = dictionaryFile;
+		this.mappingOverrides = mappingOverrides;
+		this.snapshot = snapshot;
+		this.tokenCacheSize = tokenCacheSize;
+		this.sentenceCacheSize = sentenceCacheSize;
+		this.sentenceCacheTtl = sentenceCacheTtl;
+		this.fastTagging = fastTagging;
+		this.parallelPool = parallelPool;
+		this.parallelThreshold = parallelThreshold;
+	}
+	
+	@Override
+	public Pipeline build(long version) throws IOException {
+		ShawMappingData shawMappingData = mappingOverrides.isBlank()
+			? new ShawMappingData()
+			: new ShawMappingData(ShawMappingData.readOverrides(Path.of(mappingOverrides)));
+		AtomicReference<ISLEDictionary> parsed = new AtomicReference<>();
+		Dictionary dictionary = new LazyDictionary(() -> {
+			ISLEDictionary loaded = dictionary();
+			parsed.set(loaded);
+			return loaded;
+		});
+		Lexicon lexicon = lexicon(new ShawMapper(shawMappingData.getIpa2shaw(), meterRegistry), dictionary, shawMappingData);
+		ContractionIndex contractions = ContractionIndex.of(lexicon);
+		if (parsed.get() != null) {
+			LOG.info("Dictionary of about {} MiB released after building, keeping the lexicon ({} KiB) and {} contractions",
+				parsed.get().footprintBytes() >> 20, lexicon.footprintBytes() / 1024, contractions.size());
+		}
+		
+		LruCache<SpeechEntity, TransliteratedToken> tokenCache = new LruCache<>(tokenCacheSize);
+		LruCache<String, String> sentenceCache = new LruCache<>(sentenceCacheSize, sentenceCacheTtl);
+		ShavianTransliterator transliterator = new ShavianTransliterator(
+			speechTagger,
+			shawMappingData,
+			lexicon,
+			contractions,
+			tokenCache,
+			sentenceCache,
+			fastTagging,
+			parallelPool,
+			parallelThreshold,
+			meterRegistry
+		);
+		ShavianDecoder decoder = new ShavianDecoder(
+			new ReverseLexicon(lexicon),
+			shawMappingData.getAbbreviationsMap(),
+			shawMappingData.getNamingDot()
+		);
+		this.tokenCache = tokenCache;
+		this.sentenceCache = sentenceCache;
+		return new Pipeline(new LexiconVersion(version, Instant.now()), transliterator, decoder);
+	}
+	
+	/** The token cache of the most recently built pipeline */
+	public LruCache<SpeechEntity, TransliteratedToken> tokenCache() {
+		return tokenCache;
+	}
+	
+	/** The sentence cache of the most recently built pipeline */
+	public LruCache<String, String> sentenceCache() {
+		return sentenceCache;
+	}
+	
+	private Lexicon lexicon(Mapper mapper, Dictionary dictionary, ShawMappingData shawMappingData) throws IOException {
+		if (snapshot.isBlank()) {
+			return new Lexicon(mapper, dictionary);
+		}
+		long checksum;
+		try (InputStream source = openDictionary()) {
+			checksum = LexiconSnapshot.sourceChecksum(source, shawMappingData.getIpa2shaw());
+		}
+		return new LexiconSnapshot(Path.of(snapshot), checksum)
+			.loadOrBuild(() -> new Lexicon(mapper, dictionary));
+	}
+	
+	private ISLEDictionary dictionary() throws IOException {
+		return dictionaryFile.isBlank() ? new ISLEDictionary(DICTIONARY) : new ISLEDictionary(Path.of(dictionaryFile));
+	}
+	
+	private InputStream openDictionary() throws IOException {
+		if (!dictionaryFile.isBlank()) {
+			return Files.newInputStream(Path.of(dictionaryFile));
+		}
+		InputStream stream = DictionaryPipelineFactory.class.getResourceAsStream(DICTIONARY);
+		if (stream == null) {
+			throw new IOException("Dictionary resource not found: " + DICTIONARY);
+		}
+		return stream;
+	}
+	
+}
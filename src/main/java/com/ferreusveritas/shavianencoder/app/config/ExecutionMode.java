@@ -0,0 +1,8 @@
+package com.ferreusveritas.shavianencoder.app.config;
+
+/** Where encode requests run, set by shavian.execution.mode */
+public enum ExecutionMode {
+	PLATFORM, // on the servlet container's request thread, as before
+	EXECUTOR, // on a dedicated bounded pool, releasing the request thread while queued (async servlet response)
+	VIRTUAL; // on a virtual thread per request (Java 21+, falls back to EXECUTOR on older runtimes)
+}
@@ -0,0 +1,86 @@
+package com.ferreusveritas.shavianencoder.app.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** Thread pools that only serve requests. Not loaded by the CLI, which runs without a web server */
+@Configuration
+@ConditionalOnWebApplication
+public class WebConfig {
+	
+	private static final Logger LOG = LoggerFactory.getLogger(WebConfig.class);
+	
+	@Bean
+	ExecutorService batchExecutor(
+		@Value("${shavian.batch.threads:0}") int threads
+	) {
+		AtomicInteger count = new AtomicInteger();
+		return Executors.newFixedThreadPool(
+			threads > 0 ? threads : Runtime.getRuntime().availableProcessors(),
+			r -> new Thread(r, "shavian-batch-" + count.incrementAndGet())
+		);
+	}
+	
+	/**
+	 * Transliterates live updates. Each connection queues at most one task at a time, so the queue stays short, and
+	 * replies are sent asynchronously so a task never waits on a slow client
+	 */
+	@Bean
+	ExecutorService liveExecutor(
+		@Value("${shavian.live.threads:0}") int threads
+	) {
+		AtomicInteger count = new AtomicInteger();
+		return Executors.newFixedThreadPool(
+			threads > 0 ? threads : Runtime.getRuntime().availableProcessors(),
+			r -> new Thread(r, "shavian-live-" + count.incrementAndGet())
+		);
+	}
+	
+	/**
+	 * Runs encode requests according to the execution mode. Tagging is capped at the tagger pool size whatever
+	 * the mode, so this only decides which threads wait for it. In platform mode the controllers don't go through
+	 * it at all and it runs anything else on the calling thread.
+	 */
+	@Bean
+	Executor requestExecutor(
+		@Value("${shavian.execution.mode:platform}") ExecutionMode mode,
+		@Value("${shavian.execution.threads:0}") int threads,
+		@Value("${shavian.execution.queue-capacity:1000}") int queueCapacity,
+		MeterRegistry meterRegistry
+	) {
+		if (mode == ExecutionMode.PLATFORM) {
+			return Runnable::run;
+		}
+		if (mode == ExecutionMode.VIRTUAL) {
+			try {
+				ExecutorService virtual = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+				return ExecutorServiceMetrics.monitor(meterRegistry, virtual, "shavian.request");
+			} catch (ReflectiveOperationException e) {
+				LOG.warn("Virtual threads need Java 21 or later, running {} on a bounded executor instead", mode);
+			}
+		}
+		AtomicInteger count = new AtomicInteger();
+		int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+		ExecutorService bounded = new ThreadPoolExecutor(
+			poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+			new ArrayBlockingQueue<>(queueCapacity),
+			r -> new Thread(r, "shavian-request-" + count.incrementAndGet())
+		);
+		return ExecutorServiceMetrics.monitor(meterRegistry, bounded, "shavian.request");
+	}
+	
+}
@@ -0,0 +1,49 @@
+package com.ferreusveritas.shavianencoder.app.config;
+
+import com.ferreusveritas.shavianencoder.app.web.socket.LiveEncodeHandler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+import org.springframework.web.socket.server.standard.ServletServerContainerFactoryBean;
+
+/** Not loaded by the CLI, which runs without a web server */
+@Configuration
+@EnableWebSocket
+@ConditionalOnWebApplication
+public class WebSocketConfig implements WebSocketConfigurer {
+	
+	private final LiveEncodeHandler liveEncodeHandler;
+	private final String[] allowedOrigins;
+	private final int maxLength;
+	
+	@Autowired
+	public WebSocketConfig(
+		LiveEncodeHandler liveEncodeHandler,
+		@Value("${shavian.live.allowed-origins:}") String[] allowedOrigins,
+		@Value("${shavian.live.max-length:10000}") int maxLength
+	) {
+		this.liveEncodeHandler = liveEncodeHandler;
+		this.allowedOrigins = allowedOrigins;
+		this.maxLength = maxLength;
+	}
+	
+	/** The container's own limit is 8K characters, so it has to be at least the largest update the handler accepts */
+	@Bean
+	ServletServerContainerFactoryBean webSocketContainer() {
+		ServletServerContainerFactoryBean container = new ServletServerContainerFactoryBean();
+		container.setMaxTextMessageBufferSize(maxLength + 1);
+		return container;
+	}
+	
+	@Override
+	public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+		registry.addHandler(liveEncodeHandler, "/encode/live")
+			.setAllowedOriginPatterns(allowedOrigins);
+	}
+	
+}
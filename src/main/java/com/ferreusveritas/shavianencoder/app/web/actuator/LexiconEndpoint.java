@@ -0,0 +1,54 @@
+package com.ferreusveritas.shavianencoder.app.web.actuator;
+
+import com.ferreusveritas.shavianencoder.core.lexicon.LexiconVersion;
+import com.ferreusveritas.shavianencoder.core.services.LexiconService;
+import com.ferreusveritas.shavianencoder.core.services.ReloadInProgressException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * The lexicon version at /actuator/lexicon, and a POST there to reload it. Served on the management port
+ * (management.server.port) rather than alongside the public endpoints.
+ */
+@Component
+@ConditionalOnWebApplication
+@WebEndpoint(id = "lexicon")
+public class LexiconEndpoint {
+	
+	private final LexiconService lexiconService;
+	
+	@Autowired
+	public LexiconEndpoint(
+		LexiconService lexiconService
+	) {
+		this.lexiconService = lexiconService;
+	}
+	
+	@ReadOperation
+	public LexiconVersion version() {
+		return lexiconService.version();
+	}
+	
+	/**
+	 * Start rebuilding the lexicon from the dictionary and mapping files and answer 202 with the version it replaces.
+	 * The new version is active once GET shows a higher number; a failed build is logged and keeps the current one.
+	 */
+	@WriteOperation
+	public WebEndpointResponse<Object> reload() {
+		try {
+			lexiconService.reload();
+			return new WebEndpointResponse<>(lexiconService.version(), HttpStatus.ACCEPTED.value());
+		} catch (ReloadInProgressException e) {
+			return new WebEndpointResponse<>(Map.of("error", e.getMessage()), HttpStatus.CONFLICT.value());
+		}
+	}
+	
+}
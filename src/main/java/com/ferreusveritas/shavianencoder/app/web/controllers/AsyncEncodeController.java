@@ -0,0 +1,51 @@
+package com.ferreusveritas.shavianencoder.app.web.controllers;
+
+import com.ferreusveritas.shavianencoder.core.model.BatchItemResponse;
+import com.ferreusveritas.shavianencoder.core.model.EncodeRequest;
+import com.ferreusveritas.shavianencoder.core.model.ShavianResponse;
+import com.ferreusveritas.shavianencoder.core.services.EncoderService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Encodes on the request executor and releases the servlet thread meanwhile, for the executor and virtual modes.
+ * The response waits for as long as spring.mvc.async.request-timeout allows.
+ */
+@RestController()
+@RequestMapping("/encode")
+@ConditionalOnWebApplication
+@ConditionalOnExpression("!'${shavian.execution.mode:platform}'.equalsIgnoreCase('platform')")
+public class AsyncEncodeController {
+	
+	private final EncoderService encoderService;
+	
+	@Autowired
+	public AsyncEncodeController(
+		EncoderService encoderService
+	) {
+		this.encoderService = encoderService;
+	}
+	
+	@PostMapping()
+	public CompletableFuture<ShavianResponse> encode(
+		@RequestBody EncodeRequest request
+	) {
+		return encoderService.encodeAsync(request);
+	}
+	
+	@PostMapping("/batch")
+	public CompletableFuture<List<BatchItemResponse>> encodeBatch(
+		@RequestBody List<EncodeRequest> requests
+	) {
+		return encoderService.encodeBatchAsync(requests);
+	}
+	
+}
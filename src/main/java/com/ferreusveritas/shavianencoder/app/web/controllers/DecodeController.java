@@ -0,0 +1,55 @@
+package com.ferreusveritas.shavianencoder.app.web.controllers;
+
+import com.ferreusveritas.shavianencoder.core.lexicon.ReverseEntry;
+import com.ferreusveritas.shavianencoder.core.model.BatchItemResponse;
+import com.ferreusveritas.shavianencoder.core.model.DecodeRequest;
+import com.ferreusveritas.shavianencoder.core.model.EnglishResponse;
+import com.ferreusveritas.shavianencoder.core.services.DecoderService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController()
+@RequestMapping("/decode")
+@ConditionalOnWebApplication
+public class DecodeController {
+	
+	private final DecoderService decoderService;
+	
+	@Autowired
+	public DecodeController(
+		DecoderService decoderService
+	) {
+		this.decoderService = decoderService;
+	}
+	
+	@PostMapping()
+	public EnglishResponse decode(
+		@RequestBody DecodeRequest request
+	) {
+		return decoderService.decode(request);
+	}
+	
+	@PostMapping("/batch")
+	public List<BatchItemResponse> decodeBatch(
+		@RequestBody List<DecodeRequest> requests
+	) {
+		return decoderService.decodeBatch(requests);
+	}
+	
+	/** Every English headword with this exact Shavian spelling, most likely first */
+	@GetMapping("/candidates/{spelling}")
+	public List<ReverseEntry> candidates(
+		@PathVariable String spelling
+	) {
+		return decoderService.candidates(spelling);
+	}
+	
+}
@@ -0,0 +1,68 @@
+package com.ferreusveritas.shavianencoder.app.web.controllers;
+
+import com.ferreusveritas.shavianencoder.core.model.DocumentEdit;
+import com.ferreusveritas.shavianencoder.core.model.DocumentEditResponse;
+import com.ferreusveritas.shavianencoder.core.model.DocumentRequest;
+import com.ferreusveritas.shavianencoder.core.model.DocumentResponse;
+import com.ferreusveritas.shavianencoder.core.services.DocumentSessionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Incremental encoding for live editors. Open a session with the whole document, then send each batch of edits as
+ * English ranges with their replacement text and apply the Shavian spans that come back to the copy from opening.
+ */
+@RestController()
+@RequestMapping("/encode/documents")
+@ConditionalOnWebApplication
+public class DocumentController {
+	
+	private final DocumentSessionService documentSessionService;
+	
+	@Autowired
+	public DocumentController(
+		DocumentSessionService documentSessionService
+	) {
+		this.documentSessionService = documentSessionService;
+	}
+	
+	@PostMapping()
+	public DocumentResponse open(
+		@RequestBody DocumentRequest request
+	) {
+		return documentSessionService.open(request.message());
+	}
+	
+	@PatchMapping("/{id}")
+	public DocumentEditResponse edit(
+		@PathVariable("id") String id,
+		@RequestBody List<DocumentEdit> edits
+	) {
+		return documentSessionService.edit(id, edits);
+	}
+	
+	@GetMapping("/{id}")
+	public DocumentResponse document(
+		@PathVariable("id") String id
+	) {
+		return documentSessionService.document(id);
+	}
+	
+	@DeleteMapping("/{id}")
+	public void close(
+		@PathVariable("id") String id
+	) {
+		documentSessionService.close(id);
+	}
+	
+}
@@ -1,33 +1,158 @@
 package com.ferreusveritas.shavianencoder.app.web.controllers;
 
-import com.ferreusveritas.shavianencoder.core.model.EncodeRequest;
-import com.ferreusveritas.shavianencoder.core.model.ShavianResponse;
 import com.ferreusveritas.shavianencoder.core.services.EncoderService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/** Streams and uploads; /encode and /encode/batch are in {@link PlatformEncodeController} or {@link AsyncEncodeController} */
 @RestController()
 @RequestMapping("/encode")
+@ConditionalOnWebApplication
 public class EncodeController {
 	
 	private final EncoderService encoderService;
+	private final long spoolThreshold;
+	private final long maxUploadSize;
 	
 	@Autowired
 	public EncodeController(
-		EncoderService encoderService
+		EncoderService encoderService,
+		@Value("${shavian.upload.spool-threshold:1MB}") DataSize spoolThreshold,
+		@Value("${shavian.upload.max-size:200MB}") DataSize maxUploadSize
 	) {
 		this.encoderService = encoderService;
+		this.spoolThreshold = spoolThreshold.toBytes();
+		this.maxUploadSize = maxUploadSize.toBytes();
 	}
 	
-	// Add a simple post here
-	@PostMapping()
-	public ShavianResponse encode(
-		@RequestBody EncodeRequest request
-	) {
-		return encoderService.encode(request);
+	/** Transliterate a text/plain body sentence by sentence, writing the result back with chunked transfer as it goes */
+	@PostMapping(value = "/stream", consumes = MediaType.TEXT_PLAIN_VALUE, produces = "text/plain;charset=UTF-8")
+	public void encodeStream(
+		HttpServletRequest request,
+		HttpServletResponse response
+	) throws IOException {
+		Charset charset = request.getCharacterEncoding() != null ? Charset.forName(request.getCharacterEncoding()) : StandardCharsets.UTF_8;
+		response.setContentType("text/plain;charset=UTF-8");
+		try (
+			Reader reader = new InputStreamReader(request.getInputStream(), charset);
+			Writer writer = new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8)
+		) {
+			encoderService.encodeStream(reader, writer);
+		}
+	}
+	
+	/**
+	 * Transliterate an uploaded file and stream the result back as an attachment. The multipart resolver has already
+	 * received the whole file, on disk once it is over spring.servlet.multipart.file-size-threshold.
+	 */
+	@PostMapping(value = "/file", consumes = MediaType.MULTIPART_FORM_DATA_VALUE, produces = "text/plain;charset=UTF-8")
+	public void encodeFile(
+		@RequestPart("file") MultipartFile file,
+		HttpServletResponse response
+	) throws IOException {
+		String name = file.getOriginalFilename() != null && !file.getOriginalFilename().isBlank() ? file.getOriginalFilename() : "upload.txt";
+		response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+			.filename(name.replaceFirst("(\\.txt)?$", ".shaw.txt"), StandardCharsets.UTF_8)
+			.build()
+			.toString());
+		try (InputStream input = file.getInputStream()) {
+			encode(input, charsetOf(file.getContentType()), response);
+		}
+	}
+	
+	/**
+	 * Transliterate a raw text/plain upload. The body is read in full before any output is written, because many
+	 * clients don't read the response until they have finished sending and would otherwise stall once the socket
+	 * buffers fill. Bodies over the spool threshold are held in a temp file rather than on the heap.
+	 */
+	@PostMapping(value = "/file", consumes = MediaType.TEXT_PLAIN_VALUE, produces = "text/plain;charset=UTF-8")
+	public void encodeFile(
+		HttpServletRequest request,
+		HttpServletResponse response
+	) throws IOException {
+		Charset charset = request.getCharacterEncoding() != null ? Charset.forName(request.getCharacterEncoding()) : StandardCharsets.UTF_8;
+		try (InputStream body = request.getInputStream()) {
+			byte[] head = body.readNBytes((int) Math.min(spoolThreshold, Integer.MAX_VALUE - 8));
+			if (head.length < spoolThreshold) {
+				encode(new ByteArrayInputStream(head), charset, response);
+				return;
+			}
+			Path spool = Files.createTempFile("shavian-upload-", ".txt");
+			try {
+				try (OutputStream out = Files.newOutputStream(spool)) {
+					out.write(head);
+					copy(body, out, maxUploadSize - head.length);
+				}
+				try (InputStream input = Files.newInputStream(spool)) {
+					encode(input, charset, response);
+				}
+			} finally {
+				Files.deleteIfExists(spool);
+			}
+		}
+	}
+	
+	private void encode(InputStream input, Charset charset, HttpServletResponse response) throws IOException {
+		response.setContentType("text/plain;charset=UTF-8");
+		try (
+			Reader reader = new InputStreamReader(input, charset);
+			Writer writer = new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8)
+		) {
+			encoderService.encodeStream(reader, writer);
+		}
+	}
+	
+	private static void copy(InputStream in, OutputStream out, long limit) throws IOException {
+		byte[] buffer = new byte[64 * 1024];
+		long copied = 0;
+		int read;
+		while ((read = in.read(buffer)) > 0) {
+			copied += read;
+			if (copied > limit) {
+				throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, "Upload is too large");
+			}
+			out.write(buffer, 0, read);
+		}
+	}
+	
+	/** The charset parameter of a content type, UTF-8 if there is none */
+	private static Charset charsetOf(String contentType) {
+		if (contentType != null) {
+			for (String parameter : contentType.split(";")) {
+				String[] pair = parameter.trim().split("=", 2);
+				if (pair.length == 2 && pair[0].equalsIgnoreCase("charset")) {
+					return Charset.forName(pair[1].trim().replace("\"", ""));
+				}
+			}
+		}
+		return StandardCharsets.UTF_8;
 	}
 	
 }
@@ -0,0 +1,47 @@
+package com.ferreusveritas.shavianencoder.app.web.controllers;
+
+import com.ferreusveritas.shavianencoder.core.model.BatchItemResponse;
+import com.ferreusveritas.shavianencoder.core.model.EncodeRequest;
+import com.ferreusveritas.shavianencoder.core.model.ShavianResponse;
+import com.ferreusveritas.shavianencoder.core.services.EncoderService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/** Encodes on the servlet container's request thread, for shavian.execution.mode=platform */
+@RestController()
+@RequestMapping("/encode")
+@ConditionalOnWebApplication
+@ConditionalOnProperty(name = "shavian.execution.mode", havingValue = "platform", matchIfMissing = true)
+public class PlatformEncodeController {
+	
+	private final EncoderService encoderService;
+	
+	@Autowired
+	public PlatformEncodeController(
+		EncoderService encoderService
+	) {
+		this.encoderService = encoderService;
+	}
+	
+	@PostMapping()
+	public ShavianResponse encode(
+		@RequestBody EncodeRequest request
+	) {
+		return encoderService.encode(request);
+	}
+	
+	@PostMapping("/batch")
+	public List<BatchItemResponse> encodeBatch(
+		@RequestBody List<EncodeRequest> requests
+	) {
+		return encoderService.encodeBatch(requests);
+	}
+	
+}
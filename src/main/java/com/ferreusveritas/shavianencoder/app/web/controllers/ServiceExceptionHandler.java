@@ -0,0 +1,40 @@
+package com.ferreusveritas.shavianencoder.app.web.controllers;
+
+import com.ferreusveritas.shavianencoder.core.services.InvalidEditException;
+import com.ferreusveritas.shavianencoder.core.services.LimitExceededException;
+import com.ferreusveritas.shavianencoder.core.services.ServiceOverloadedException;
+import com.ferreusveritas.shavianencoder.core.services.SessionNotFoundException;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.io.IOException;
+
+/** Maps the services' exceptions to statuses, answered through the same error page as any other failed request */
+@RestControllerAdvice
+@ConditionalOnWebApplication
+public class ServiceExceptionHandler {
+	
+	@ExceptionHandler(ServiceOverloadedException.class)
+	public void overloaded(ServiceOverloadedException e, HttpServletResponse response) throws IOException {
+		response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), e.getMessage());
+	}
+	
+	@ExceptionHandler(LimitExceededException.class)
+	public void limitExceeded(LimitExceededException e, HttpServletResponse response) throws IOException {
+		response.sendError(HttpStatus.PAYLOAD_TOO_LARGE.value(), e.getMessage());
+	}
+	
+	@ExceptionHandler(SessionNotFoundException.class)
+	public void sessionNotFound(SessionNotFoundException e, HttpServletResponse response) throws IOException {
+		response.sendError(HttpStatus.NOT_FOUND.value(), e.getMessage());
+	}
+	
+	@ExceptionHandler(InvalidEditException.class)
+	public void invalidEdit(InvalidEditException e, HttpServletResponse response) throws IOException {
+		response.sendError(HttpStatus.BAD_REQUEST.value(), e.getMessage());
+	}
+	
+}
@@ -0,0 +1,221 @@
+package com.ferreusveritas.shavianencoder.app.web.socket;
+
+import com.ferreusveritas.shavianencoder.core.services.LexiconService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.websocket.RemoteEndpoint;
+import jakarta.websocket.SendResult;
+import jakarta.websocket.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.adapter.NativeWebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * As-you-type previews over a WebSocket. Each text frame is the text to preview, usually the sentence being typed,
+ * optionally prefixed with a numeric id and a tab; the reply is its transliteration with the same prefix.
+ * <p>
+ * Each connection has at most one update in flight. Updates that arrive meanwhile replace each other, so when the
+ * client types faster than the server keeps up it only ever gets the newest text back and stale ones are dropped.
+ * <p>
+ * Replies go out through the container's asynchronous send, so no pool thread ever waits on a client's socket: the
+ * thread transliterates, hands the reply over and is free, and the next update is started from the send's completion.
+ * A client that stops reading only holds up its own replies, and its updates keep being replaced until the reply goes
+ * out or the send time limit passes, which fails the send and closes the connection. The connection is only ever
+ * closed by whoever holds its single slot, so a close never overlaps a send.
+ */
+@Component
+@ConditionalOnWebApplication
+public class LiveEncodeHandler extends TextWebSocketHandler {
+	
+	private static final Logger LOG = LoggerFactory.getLogger(LiveEncodeHandler.class);
+	
+	private final LexiconService lexiconService;
+	private final Executor liveExecutor;
+	private final int maxLength;
+	private final long sendTimeLimit;
+	private final Map<String, Connection> connections = new ConcurrentHashMap<>();
+	
+	private final Counter sentCounter;
+	private final Counter coalescedCounter;
+	private final Counter failedCounter;
+	
+	@Autowired
+	public LiveEncodeHandler(
+		LexiconService lexiconService,
+		@Qualifier("liveExecutor") Executor liveExecutor,
+		MeterRegistry meterRegistry,
+		@Value("${shavian.live.max-length:10000}") int maxLength,
+		@Value("${shavian.live.send-time-limit:10s}") Duration sendTimeLimit
+	) {
+		this.lexiconService = lexiconService;
+		this.liveExecutor = liveExecutor;
+		this.maxLength = maxLength;
+		this.sendTimeLimit = sendTimeLimit.toMillis();
+		this.sentCounter = updateCounter("sent", meterRegistry);
+		this.coalescedCounter = updateCounter("coalesced", meterRegistry);
+		this.failedCounter = updateCounter("failed", meterRegistry);
+		Gauge.builder("shavian.live.connections", connections, Map::size)
+			.description("WebSocket preview connections currently open")
+			.register(meterRegistry);
+	}
+	
+	private static Counter updateCounter(String result, MeterRegistry meterRegistry) {
+		return Counter.builder("shavian.live.updates")
+			.tag("result", result)
+			.description("Live preview updates received, by whether they were answered or replaced by a newer one")
+			.register(meterRegistry);
+	}
+	
+	@Override
+	public void afterConnectionEstablished(WebSocketSession session) {
+		Session nativeSession = session instanceof NativeWebSocketSession nativeWebSocketSession
+			? nativeWebSocketSession.getNativeSession(Session.class)
+			: null;
+		if (nativeSession == null) {
+			throw new IllegalStateException("Live previews need a standard WebSocket container, got " + session.getClass().getName());
+		}
+		RemoteEndpoint.Async remote = nativeSession.getAsyncRemote();
+		remote.setSendTimeout(sendTimeLimit);
+		connections.put(session.getId(), new Connection(session, remote));
+	}
+	
+	@Override
+	protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+		Connection connection = connections.get(session.getId());
+		if (connection == null) {
+			return;
+		}
+		if (message.getPayload().length() > maxLength) {
+			connection.close(CloseStatus.TOO_BIG_TO_PROCESS.withReason("Updates are limited to " + maxLength + " characters"));
+		} else {
+			connection.offer(message.getPayload());
+		}
+	}
+	
+	@Override
+	public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+		connections.remove(session.getId());
+	}
+	
+	/** The id and tab the update starts with, empty if it has none */
+	private static String idPrefix(String update) {
+		int i = 0;
+		while (i < update.length() && Character.isDigit(update.charAt(i))) {
+			i++;
+		}
+		return i > 0 && i < update.length() && update.charAt(i) == '\t' ? update.substring(0, i + 1) : "";
+	}
+	
+	private final class Connection {
+		
+		private final WebSocketSession session;
+		private final RemoteEndpoint.Async remote;
+		private final AtomicReference<String> pending = new AtomicReference<>();
+		private final AtomicReference<CloseStatus> closeRequested = new AtomicReference<>();
+		/** Held from taking an update until its reply has been sent, and while closing */
+		private final AtomicBoolean busy = new AtomicBoolean();
+		
+		Connection(WebSocketSession session, RemoteEndpoint.Async remote) {
+			this.session = session;
+			this.remote = remote;
+		}
+		
+		void offer(String update) {
+			if (pending.getAndSet(update) != null) {
+				coalescedCounter.increment();
+			}
+			schedule();
+		}
+		
+		/** Close once the reply in flight, if any, has gone out */
+		void close(CloseStatus status) {
+			closeRequested.compareAndSet(null, status);
+			schedule();
+		}
+		
+		private void schedule() {
+			if (busy.compareAndSet(false, true)) {
+				liveExecutor.execute(this::drain);
+			}
+		}
+		
+		/** Answer the newest update and hand the reply to the container, which calls sent when it has gone out */
+		private void drain() {
+			CloseStatus status = closeRequested.get();
+			if (status != null) {
+				closeQuietly(status);
+				return;
+			}
+			String update = pending.getAndSet(null);
+			if (update == null || !session.isOpen()) {
+				release();
+				return;
+			}
+			String id = idPrefix(update);
+			String reply;
+			try {
+				reply = id + lexiconService.current().transliterator().transliterate(update.substring(id.length()));
+			} catch (RuntimeException e) {
+				failed(e, CloseStatus.SERVER_ERROR);
+				return;
+			}
+			try {
+				remote.sendText(reply, this::sent);
+			} catch (RuntimeException e) {
+				failed(e, CloseStatus.SESSION_NOT_RELIABLE);
+			}
+		}
+		
+		private void sent(SendResult result) {
+			if (result.isOK()) {
+				sentCounter.increment();
+				release();
+			} else {
+				failed(result.getException(), CloseStatus.SESSION_NOT_RELIABLE);
+			}
+		}
+		
+		/** Give the slot back, taking it again for an update or close that arrived meanwhile and found it held */
+		private void release() {
+			busy.set(false);
+			if (pending.get() != null || closeRequested.get() != null) {
+				schedule();
+			}
+		}
+		
+		/** Close straight away, still holding the slot so that nothing is sent afterwards */
+		private void failed(Throwable e, CloseStatus status) {
+			failedCounter.increment();
+			LOG.debug("Live update failed on connection {}", session.getId(), e);
+			closeQuietly(status);
+		}
+		
+		private void closeQuietly(CloseStatus status) {
+			try {
+				session.close(status);
+			} catch (IOException e) {
+				LOG.debug("Failed to close connection {}", session.getId(), e);
+			}
+		}
+		
+	}
+	
+}
@@ -0,0 +1,10 @@
+package com.ferreusveritas.shavianencoder.core.decoder;
+
+import com.ferreusveritas.shavianencoder.core.lexicon.ReverseEntry;
+
+import java.util.List;
+
+public interface Decoder {
+	String decode(String shavian);
+	List<ReverseEntry> candidates(String spelling);
+}
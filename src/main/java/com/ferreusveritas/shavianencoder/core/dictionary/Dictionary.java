@@ -1,8 +1,15 @@
 package com.ferreusveritas.shavianencoder.core.dictionary;
 
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 public interface Dictionary {
 	List<String> words();
 	List<DictionaryEntry> entries(String word);
+	
+	/** Every headword with its entries, in no particular order. Safe to consume in parallel */
+	default Stream<Map.Entry<String, List<DictionaryEntry>>> stream() {
+		return words().stream().map(word -> Map.entry(word, entries(word)));
+	}
 }
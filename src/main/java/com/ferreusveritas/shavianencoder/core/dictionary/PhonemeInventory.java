@@ -0,0 +1,58 @@
+package com.ferreusveritas.shavianencoder.core.dictionary;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns phoneme symbols as small integer IDs, so pronunciations can be stored as packed arrays rather than lists
+ * of strings. IDs are handed out in order of first sight and never change, so a single inventory is shared by every
+ * dictionary, including ones loaded later on a reload.
+ * <p>
+ * The inventory is append-only: a reload can add phonemes but never removes or renumbers one. Pronunciations packed
+ * by an earlier dictionary and the per-ID tables ShawMapper keeps stay valid across reloads for that reason.
+ */
+public final class PhonemeInventory {
+	
+	private static final PhonemeInventory SHARED = new PhonemeInventory();
+	
+	private final Map<String, Short> ids = new ConcurrentHashMap<>();
+	private volatile String[] phonemes = new String[0];
+	
+	private PhonemeInventory() {}
+	
+	public static PhonemeInventory shared() {
+		return SHARED;
+	}
+	
+	/** The ID of a phoneme, adding it if it hasn't been seen before */
+	public short id(String phoneme) {
+		Short id = ids.get(phoneme);
+		return id != null ? id : add(phoneme);
+	}
+	
+	public String phoneme(int id) {
+		return phonemes[id];
+	}
+	
+	public int size() {
+		return phonemes.length;
+	}
+	
+	private synchronized short add(String phoneme) {
+		Short id = ids.get(phoneme);
+		if (id != null) {
+			return id;
+		}
+		String[] current = phonemes;
+		if (current.length > Short.MAX_VALUE) {
+			throw new IllegalStateException("More than " + Short.MAX_VALUE + " distinct phonemes");
+		}
+		String[] next = Arrays.copyOf(current, current.length + 1);
+		next[current.length] = phoneme;
+		phonemes = next; // Published before the ID so that phoneme(id) works for anyone who can see it
+		ids.put(phoneme, (short) current.length);
+		return (short) current.length;
+	}
+	
+}
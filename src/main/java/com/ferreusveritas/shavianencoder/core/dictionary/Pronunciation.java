@@ -1,7 +1,109 @@
 package com.ferreusveritas.shavianencoder.core.dictionary;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
-public record Pronunciation(
-	List<Syllable> syllables
-) {}
+/**
+ * A pronunciation packed into two arrays: the phoneme IDs of every syllable back to back, and where each syllable
+ * ends. The dictionary holds millions of these, so there are no per-syllable or per-phoneme objects.
+ */
+public final class Pronunciation {
+	
+	private final short[] phonemeIds;
+	private final short[] syllableEnds; // Exclusive end of each syllable in phonemeIds
+	
+	public Pronunciation(short[] phonemeIds, short[] syllableEnds) {
+		this.phonemeIds = phonemeIds;
+		this.syllableEnds = syllableEnds;
+	}
+	
+	public Pronunciation(List<Syllable> syllables) {
+		int length = 0;
+		for (Syllable syllable : syllables) {
+			length += syllable.length();
+		}
+		checkLength(length);
+		this.phonemeIds = new short[length];
+		this.syllableEnds = new short[syllables.size()];
+		int end = 0;
+		for (int s = 0; s < syllables.size(); s++) {
+			Syllable syllable = syllables.get(s);
+			for (int i = 0; i < syllable.length(); i++) {
+				phonemeIds[end++] = (short) syllable.phonemeId(i);
+			}
+			syllableEnds[s] = (short) end;
+		}
+	}
+	
+	/** Pronunciations are at most this many phonemes long, so that syllable ends fit in a short */
+	public static void checkLength(int phonemes) {
+		if (phonemes > Short.MAX_VALUE) {
+			throw new IllegalArgumentException("Pronunciation of " + phonemes + " phonemes is too long");
+		}
+	}
+	
+	static short[] intern(List<String> phonemes) {
+		short[] ids = new short[phonemes.size()];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = PhonemeInventory.shared().id(phonemes.get(i));
+		}
+		return ids;
+	}
+	
+	/** Approximate heap used by this pronunciation, counting object headers and array padding */
+	public long footprintBytes() {
+		return 16 + align(16 + 2L * phonemeIds.length) + align(16 + 2L * syllableEnds.length);
+	}
+	
+	private static long align(long bytes) {
+		return (bytes + 7) & ~7;
+	}
+	
+	public int syllableCount() {
+		return syllableEnds.length;
+	}
+	
+	public int syllableStart(int syllable) {
+		return syllable == 0 ? 0 : syllableEnds[syllable - 1];
+	}
+	
+	public int syllableEnd(int syllable) {
+		return syllableEnds[syllable];
+	}
+	
+	public int phonemeId(int index) {
+		return phonemeIds[index];
+	}
+	
+	/** The syllables, unpacked into new objects on every call */
+	public List<Syllable> syllables() {
+		List<Syllable> syllables = new ArrayList<>(syllableEnds.length);
+		for (int s = 0; s < syllableEnds.length; s++) {
+			syllables.add(new Syllable(Arrays.copyOfRange(phonemeIds, syllableStart(s), syllableEnd(s))));
+		}
+		return syllables;
+	}
+	
+	@Override
+	public boolean equals(Object o) {
+		return o instanceof Pronunciation other
+			&& Arrays.equals(phonemeIds, other.phonemeIds)
+			&& Arrays.equals(syllableEnds, other.syllableEnds);
+	}
+	
+	@Override
+	public int hashCode() {
+		return 31 * Arrays.hashCode(phonemeIds) + Arrays.hashCode(syllableEnds);
+	}
+	
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		for (Syllable syllable : syllables()) {
+			builder.append(builder.isEmpty() ? "" : " . ").append(syllable);
+		}
+		return builder.toString();
+	}
+	
+}
@@ -1,7 +1,58 @@
 package com.ferreusveritas.shavianencoder.core.dictionary;
 
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.List;
 
-public record Syllable(
-	List<String> phonemes
-) {}
+/** A syllable as phoneme IDs from the {@link PhonemeInventory} */
+public final class Syllable {
+	
+	private final short[] phonemeIds;
+	
+	public Syllable(short[] phonemeIds) {
+		this.phonemeIds = phonemeIds;
+	}
+	
+	public Syllable(List<String> phonemes) {
+		this(Pronunciation.intern(phonemes));
+	}
+	
+	public int length() {
+		return phonemeIds.length;
+	}
+	
+	public int phonemeId(int index) {
+		return phonemeIds[index];
+	}
+	
+	/** The phoneme symbols, looked up on access */
+	public List<String> phonemes() {
+		return new AbstractList<>() {
+			@Override
+			public String get(int index) {
+				return PhonemeInventory.shared().phoneme(phonemeIds[index]);
+			}
+			
+			@Override
+			public int size() {
+				return phonemeIds.length;
+			}
+		};
+	}
+	
+	@Override
+	public boolean equals(Object o) {
+		return o instanceof Syllable other && Arrays.equals(phonemeIds, other.phonemeIds);
+	}
+	
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(phonemeIds);
+	}
+	
+	@Override
+	public String toString() {
+		return String.join(" ", phonemes());
+	}
+	
+}
@@ -2,6 +2,7 @@ package com.ferreusveritas.shavianencoder.core.encoder;
 
 import com.ferreusveritas.shavianencoder.core.dictionary.Pronunciation;
 
+/** Must be safe to call from several threads at once, as the lexicon is generated in parallel */
 public interface Mapper {
 	String map(Pronunciation pronunciation);
 }
@@ -1,9 +1,17 @@
 package com.ferreusveritas.shavianencoder.core.encoder;
 
 import com.ferreusveritas.shavianencoder.core.model.SpeechEntity;
+import com.ferreusveritas.shavianencoder.core.model.UDPosTag;
 
 import java.util.List;
+import java.util.function.Function;
 
 public interface SpeechTagger {
 	List<SpeechEntity> tagSentence(String message);
+	
+	/**
+	 * Tag a sentence, first offering its tokens to presume. If presume returns a tag for every token the POS and
+	 * lemma models are skipped and each token is its own lemma; if it returns null the models run as usual.
+	 */
+	List<SpeechEntity> tagSentence(String message, Function<String[], UDPosTag[]> presume);
 }
@@ -1,5 +1,23 @@
 package com.ferreusveritas.shavianencoder.core.encoder;
 
+import com.ferreusveritas.shavianencoder.core.model.TokenExplanation;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.List;
+
 public interface Transliterator {
 	String transliterate(String input);
+	
+	/** Transliterate and add an explanation of every non-whitespace token to explanations, in order */
+	String transliterate(String input, List<TokenExplanation> explanations);
+	
+	void transliterate(Reader input, Writer output) throws IOException;
+	
+	/**
+	 * Split input into the sentences it is transliterated in. Each is transliterated independently, so
+	 * concatenating their transliterations gives the transliteration of the whole input.
+	 */
+	List<String> sentences(String input);
 }
@@ -0,0 +1,38 @@
+package com.ferreusveritas.shavianencoder.core.lexicon;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The headwords that are written with an apostrophe, such as don't or o'clock, so that a tokenized head, apostrophe
+ * and tail can be joined back into one word without keeping the dictionary around.
+ */
+public class ContractionIndex {
+	
+	private final Set<String> contractions;
+	
+	public ContractionIndex(Set<String> contractions) {
+		this.contractions = Set.copyOf(contractions);
+	}
+	
+	/** Collect the apostrophe forms among the lexicon's headwords */
+	public static ContractionIndex of(Lexicon lexicon) {
+		Set<String> contractions = new HashSet<>();
+		for (int i = 0; i < lexicon.size(); i++) {
+			if (lexicon.headwordContains(i, '\'')) {
+				contractions.add(lexicon.headwordAt(i));
+			}
+		}
+		return new ContractionIndex(contractions);
+	}
+	
+	/** Whether head'tail is a known contraction, ignoring case */
+	public boolean contains(String head, String tail) {
+		return contractions.contains((head + "'" + tail).toLowerCase());
+	}
+	
+	public int size() {
+		return contractions.size();
+	}
+	
+}
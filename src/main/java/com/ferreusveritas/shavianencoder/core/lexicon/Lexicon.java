@@ -6,29 +6,407 @@ import com.ferreusveritas.shavianencoder.core.dictionary.Pronunciation;
 import com.ferreusveritas.shavianencoder.core.encoder.Mapper;
 import com.ferreusveritas.shavianencoder.core.model.UDPosTag;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
+/**
+ * English headwords and their Shavian spellings.
+ * Everything is held in a handful of flat arrays: headwords and deduplicated Shavian spellings each live in one
+ * char buffer addressed by offsets, part of speech sets are int bitmasks and headwords are found through an
+ * open addressing hash table.
+ */
 public class Lexicon {
 	
-	private final Map<String, List<LexiconEntry>> value;
+	private static final Logger LOG = LoggerFactory.getLogger(Lexicon.class);
+	
+	private static final int EMPTY = -1;
+	
+	/** Parts of speech the tagger doesn't take for a proper noun, even capitalized, see isClosedClass */
+	private static final int CLOSED_CLASS = toMask(EnumSet.of(
+		UDPosTag.ADP, UDPosTag.AUX, UDPosTag.CCONJ, UDPosTag.DET, UDPosTag.PART, UDPosTag.PRON, UDPosTag.SCONJ
+	));
+	
+	// Headword i is headwordChars[headwordOffsets[i] .. headwordOffsets[i + 1]]
+	private final char[] headwordChars;
+	private final int[] headwordOffsets;
+	private final int[] headwordHashes;
+	
+	// Linear probing table of headword indexes, EMPTY where unused
+	private final int[] table;
+	
+	// The entries of headword i are entryOffsets[i] .. entryOffsets[i + 1]
+	private final int[] entryOffsets;
+	private final int[] entryShavian; // Index of the spelling in the Shavian pool
+	private final int[] entryPos; // Bitmask of UDPosTag ordinals
+	
+	// Shavian spelling i is shavianChars[shavianOffsets[i] .. shavianOffsets[i + 1]]
+	private final char[] shavianChars;
+	private final int[] shavianOffsets;
+	
+	private final Map<Integer, Set<UDPosTag>> posSets = new HashMap<>();
+	
+	// Headwords whose spelling doesn't depend on the part of speech, see isUnambiguous
+	private final BitSet unambiguous;
+	
+	private final Entries noEntries = new Entries(0, 0);
 	
 	public Lexicon(
 		Mapper mapper,
 		Dictionary dictionary
 	) {
-		this.value = generateShawLexicon(dictionary, mapper);
+		this(generateShawLexicon(dictionary, mapper));
+	}
+	
+	/** Create a lexicon from already generated entries */
+	public Lexicon(Map<String, List<LexiconEntry>> entries) {
+		this(tablesOf(entries));
+	}
+	
+	/** Wrap the arrays of a lexicon saved earlier, only rebuilding the hash table and the unambiguous set */
+	public Lexicon(Tables tables) {
+		tables.validate();
+		this.headwordChars = tables.headwordChars();
+		this.headwordOffsets = tables.headwordOffsets();
+		this.entryOffsets = tables.entryOffsets();
+		this.entryShavian = tables.entryShavian();
+		this.entryPos = tables.entryPos();
+		this.shavianChars = tables.shavianChars();
+		this.shavianOffsets = tables.shavianOffsets();
+		
+		int count = headwordOffsets.length - 1;
+		this.headwordHashes = new int[count];
+		for (int i = 0; i < count; i++) {
+			headwordHashes[i] = hash(headwordChars, headwordOffsets[i], headwordOffsets[i + 1]);
+		}
+		for (int mask : entryPos) {
+			posSets.computeIfAbsent(mask, Lexicon::fromMask);
+		}
+		
+		this.table = new int[Integer.highestOneBit(Math.max(count, 1) * 2) * 2];
+		Arrays.fill(table, EMPTY);
+		for (int i = 0; i < count; i++) {
+			int slot = mix(headwordHashes[i]) & (table.length - 1);
+			while (table[slot] != EMPTY) {
+				slot = (slot + 1) & (table.length - 1);
+			}
+			table[slot] = i;
+		}
+		
+		this.unambiguous = new BitSet(count);
+		for (int i = 0; i < count; i++) {
+			unambiguous.set(i, isUnambiguous(i));
+		}
+		
+		LOG.info("Lexicon holds {} headwords, {} entries and {} distinct spellings in {} KiB",
+			count, entryPos.length, shavianOffsets.length - 1, footprintBytes() / 1024);
+	}
+	
+	/**
+	 * The arrays a lexicon is made of, see the fields of the same names. Headwords are in sorted order and each
+	 * offsets array has one more element than it has items, ending with the length of what it indexes.
+	 */
+	public record Tables(
+		char[] headwordChars,
+		int[] headwordOffsets,
+		int[] entryOffsets,
+		int[] entryShavian,
+		int[] entryPos,
+		char[] shavianChars,
+		int[] shavianOffsets
+	) {
+		
+		private void validate() {
+			int headwords = headwordOffsets.length - 1;
+			int spellings = shavianOffsets.length - 1;
+			if (headwords < 0 || entryOffsets.length != headwords + 1 || entryShavian.length != entryPos.length
+				|| headwordOffsets[headwords] != headwordChars.length || entryOffsets[headwords] != entryPos.length
+				|| spellings < 0 || shavianOffsets[spellings] != shavianChars.length) {
+				throw new IllegalArgumentException("Lexicon tables are inconsistent");
+			}
+			for (int spelling : entryShavian) {
+				if (spelling < 0 || spelling >= spellings) {
+					throw new IllegalArgumentException("Lexicon entry refers to missing spelling " + spelling);
+				}
+			}
+		}
+		
+	}
+	
+	/** The arrays of this lexicon, shared rather than copied, so they must not be modified */
+	public Tables tables() {
+		return new Tables(headwordChars, headwordOffsets, entryOffsets, entryShavian, entryPos, shavianChars, shavianOffsets);
+	}
+	
+	private static Tables tablesOf(Map<String, List<LexiconEntry>> entries) {
+		List<String> headwords = entries.keySet().stream().sorted().toList();
+		int count = headwords.size();
+		int entryCount = entries.values().stream().mapToInt(List::size).sum();
+		
+		int[] headwordOffsets = new int[count + 1];
+		int[] entryOffsets = new int[count + 1];
+		int[] entryShavian = new int[entryCount];
+		int[] entryPos = new int[entryCount];
+		
+		StringBuilder headwordBuffer = new StringBuilder();
+		StringBuilder shavianBuffer = new StringBuilder();
+		List<Integer> shavianOffsetList = new ArrayList<>();
+		Map<String, Integer> shavianIds = new HashMap<>();
+		int entry = 0;
+		for (int i = 0; i < count; i++) {
+			String headword = headwords.get(i);
+			headwordOffsets[i] = headwordBuffer.length();
+			headwordBuffer.append(headword);
+			entryOffsets[i] = entry;
+			for (LexiconEntry lexiconEntry : entries.get(headword)) {
+				entryShavian[entry] = shavianIds.computeIfAbsent(lexiconEntry.shavian(), shavian -> {
+					shavianOffsetList.add(shavianBuffer.length());
+					shavianBuffer.append(shavian);
+					return shavianOffsetList.size() - 1;
+				});
+				entryPos[entry] = toMask(lexiconEntry.pos());
+				entry++;
+			}
+		}
+		headwordOffsets[count] = headwordBuffer.length();
+		entryOffsets[count] = entry;
+		shavianOffsetList.add(shavianBuffer.length());
+		
+		return new Tables(
+			headwordBuffer.toString().toCharArray(),
+			headwordOffsets,
+			entryOffsets,
+			entryShavian,
+			entryPos,
+			shavianBuffer.toString().toCharArray(),
+			shavianOffsetList.stream().mapToInt(Integer::intValue).toArray()
+		);
 	}
 	
 	public boolean hasWord(String word) {
-		return value.containsKey(word);
+		return indexOf(word) != EMPTY;
+	}
+	
+	/** The entries of a word, as a view over the lexicon's arrays */
+	public Entries getEntries(String word) {
+		int index = indexOf(word.toLowerCase());
+		return index == EMPTY ? noEntries : entriesAt(index);
+	}
+	
+	/**
+	 * Whether the word has a single Shavian spelling and can't be a proper noun, so transliterating it needs
+	 * neither its part of speech nor its lemma
+	 */
+	public boolean isUnambiguous(String word) {
+		int index = indexOf(word.toLowerCase());
+		return index != EMPTY && unambiguous.get(index);
+	}
+	
+	/**
+	 * Whether every entry of the word is a determiner, pronoun, preposition, conjunction, auxiliary or particle,
+	 * words a capital at the start of a sentence doesn't turn into a name
+	 */
+	public boolean isClosedClass(String word) {
+		int index = indexOf(word.toLowerCase());
+		if (index == EMPTY) {
+			return false;
+		}
+		for (int i = entryOffsets[index]; i < entryOffsets[index + 1]; i++) {
+			if (entryPos[i] == 0 || (entryPos[i] & ~CLOSED_CLASS) != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	public int size() {
+		return headwordHashes.length;
+	}
+	
+	/** Visit every headword and its entries, in headword order */
+	public void forEach(BiConsumer<String, List<LexiconEntry>> action) {
+		for (int i = 0; i < size(); i++) {
+			action.accept(headwordAt(i), entriesAt(i));
+		}
+	}
+	
+	/** Approximate heap used by the lexicon arrays */
+	public long footprintBytes() {
+		return 2L * (headwordChars.length + shavianChars.length)
+			+ 4L * (headwordOffsets.length + headwordHashes.length + table.length
+				+ entryOffsets.length + entryShavian.length + entryPos.length + shavianOffsets.length)
+			+ unambiguous.size() / 8;
+	}
+	
+	int spellingCount() {
+		return shavianOffsets.length - 1;
+	}
+	
+	int spellingHash(int spelling) {
+		return hash(shavianChars, shavianOffsets[spelling], shavianOffsets[spelling + 1]);
 	}
 	
-	public List<LexiconEntry> getEntries(String word) {
-		return value.getOrDefault(word.toLowerCase(), List.of());
+	boolean spellingEquals(int spelling, String shavian) {
+		int start = shavianOffsets[spelling];
+		int length = shavianOffsets[spelling + 1] - start;
+		if (length != shavian.length()) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (shavianChars[start + i] != shavian.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
 	}
 	
-	private LexiconEntry entryToShavian(Mapper mapper, DictionaryEntry entry) {
+	int entryStart(int headword) {
+		return entryOffsets[headword];
+	}
+	
+	int entrySpelling(int entry) {
+		return entryShavian[entry];
+	}
+	
+	int entryPosMask(int entry) {
+		return entryPos[entry];
+	}
+	
+	String headwordAt(int index) {
+		return new String(headwordChars, headwordOffsets[index], headwordOffsets[index + 1] - headwordOffsets[index]);
+	}
+	
+	boolean headwordContains(int index, char c) {
+		for (int i = headwordOffsets[index]; i < headwordOffsets[index + 1]; i++) {
+			if (headwordChars[i] == c) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	int headwordLength(int index) {
+		return headwordOffsets[index + 1] - headwordOffsets[index];
+	}
+	
+	private boolean isUnambiguous(int index) {
+		int properNoun = 1 << UDPosTag.PROPN.ordinal();
+		for (int i = entryOffsets[index]; i < entryOffsets[index + 1]; i++) {
+			if (entryShavian[i] != entryShavian[entryOffsets[index]] || (entryPos[i] & properNoun) != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	private int indexOf(String word) {
+		int hash = word.hashCode();
+		int slot = mix(hash) & (table.length - 1);
+		int index;
+		while ((index = table[slot]) != EMPTY) {
+			if (headwordHashes[index] == hash && headwordEquals(index, word)) {
+				return index;
+			}
+			slot = (slot + 1) & (table.length - 1);
+		}
+		return EMPTY;
+	}
+	
+	private boolean headwordEquals(int index, String word) {
+		int start = headwordOffsets[index];
+		int length = headwordOffsets[index + 1] - start;
+		if (length != word.length()) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (headwordChars[start + i] != word.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	private Entries entriesAt(int index) {
+		return new Entries(entryOffsets[index], entryOffsets[index + 1]);
+	}
+	
+	/**
+	 * The entries of one headword, read from the lexicon's arrays on access. get() builds a whole LexiconEntry, while
+	 * hasPos() and shavian() let a caller pick an entry without allocating anything but the spelling it picks.
+	 */
+	public final class Entries extends AbstractList<LexiconEntry> {
+		
+		private final int from;
+		private final int to;
+		
+		private Entries(int from, int to) {
+			this.from = from;
+			this.to = to;
+		}
+		
+		@Override
+		public int size() {
+			return to - from;
+		}
+		
+		@Override
+		public LexiconEntry get(int index) {
+			return new LexiconEntry(shavian(index), posSets.get(entryPos[entry(index)]));
+		}
+		
+		/** Whether the entry is for this part of speech */
+		public boolean hasPos(int index, UDPosTag pos) {
+			return (entryPos[entry(index)] & (1 << pos.ordinal())) != 0;
+		}
+		
+		public String shavian(int index) {
+			int spelling = entryShavian[entry(index)];
+			return new String(shavianChars, shavianOffsets[spelling], shavianOffsets[spelling + 1] - shavianOffsets[spelling]);
+		}
+		
+		private int entry(int index) {
+			return from + Objects.checkIndex(index, to - from);
+		}
+		
+	}
+	
+	/** Same as String.hashCode of the range */
+	private static int hash(char[] chars, int from, int to) {
+		int hash = 0;
+		for (int i = from; i < to; i++) {
+			hash = 31 * hash + chars[i];
+		}
+		return hash;
+	}
+	
+	private static int mix(int hash) {
+		return hash ^ (hash >>> 16);
+	}
+	
+	private static int toMask(Set<UDPosTag> tags) {
+		int mask = 0;
+		for (UDPosTag tag : tags) {
+			mask |= 1 << tag.ordinal();
+		}
+		return mask;
+	}
+	
+	static Set<UDPosTag> fromMask(int mask) {
+		Set<UDPosTag> tags = EnumSet.noneOf(UDPosTag.class);
+		for (UDPosTag tag : UDPosTag.values()) {
+			if ((mask & (1 << tag.ordinal())) != 0) {
+				tags.add(tag);
+			}
+		}
+		return Collections.unmodifiableSet(tags);
+	}
+	
+	private static LexiconEntry entryToShavian(Mapper mapper, DictionaryEntry entry) {
 		List<Pronunciation> pronunciations = entry.pronunciations();
 		return new LexiconEntry(
 			pronunciations.stream()
@@ -38,40 +416,42 @@ public class Lexicon {
 		);
 	}
 	
-	private Map<String, List<LexiconEntry>> generateShawLexicon(
+	/**
+	 * Map every dictionary entry to Shavian. Headwords are independent of each other so they are spread over the
+	 * common pool, and each headword's variants come out in dictionary order, so the result doesn't depend on how
+	 * the work was split.
+	 */
+	private static Map<String, List<LexiconEntry>> generateShawLexicon(
 		Dictionary dictionary,
 		Mapper mapper
 	) {
-		Map<String, List<LexiconEntry>> lexicon = new HashMap<>();
-		
-		for (String headword : dictionary.words()) { // Iterate over every word in the entire english dictionary
-			
-			List<DictionaryEntry> entries = dictionary.entries(headword);
-			
-			// Some written words have multiple uses and thus multiple part of speech entries.
-			// For example: wind(verb, to turn) and wind(noun, a breeze)
-			List<LexiconEntry> variants = entries.stream()
-				.map(e -> entryToShavian(mapper, e))
-				.toList();
-			
-			// Group the variants by their part of speech. Some words have differing pronunciations even within the same part of speech
-			Map<Set<UDPosTag>, List<LexiconEntry>> byPOS = groupBy(variants, LexiconEntry::pos);
-			
-			// Attempt to find the best pronunciation for each part of speech
-			for(Set<UDPosTag> pos : byPOS.keySet()) {
-				List<LexiconEntry> alternates = byPOS.get(pos);
-				alternates = findBestPronunciation(alternates);
-				byPOS.put(pos, alternates);
-			}
-			List<LexiconEntry> toAdd = byPOS.values().stream().flatMap(List::stream).toList();
-			lexicon.put(headword, toAdd);
-		}
-		return Map.copyOf(lexicon);
+		long start = System.nanoTime();
+		Map<String, List<LexiconEntry>> lexicon = dictionary.stream() // Every word in the entire english dictionary
+			.parallel()
+			.collect(Collectors.toMap(Map.Entry::getKey, e -> headwordToShavian(mapper, e.getValue())));
+		LOG.info("Generated Shavian for {} headwords in {} ms on {} threads",
+			lexicon.size(), (System.nanoTime() - start) / 1_000_000, ForkJoinPool.getCommonPoolParallelism());
+		return lexicon;
+	}
+	
+	private static List<LexiconEntry> headwordToShavian(Mapper mapper, List<DictionaryEntry> entries) {
+		// Some written words have multiple uses and thus multiple part of speech entries.
+		// For example: wind(verb, to turn) and wind(noun, a breeze)
+		List<LexiconEntry> variants = entries.stream()
+			.map(e -> entryToShavian(mapper, e))
+			.toList();
+		
+		// Group the variants by their part of speech. Some words have differing pronunciations even within the same part of speech
+		Map<Set<UDPosTag>, List<LexiconEntry>> byPOS = groupBy(variants, LexiconEntry::pos);
+		
+		// Attempt to find the best pronunciation for each part of speech
+		byPOS.replaceAll((pos, alternates) -> findBestPronunciation(alternates));
+		return byPOS.values().stream().flatMap(List::stream).toList();
 	}
 	
-	/** Group a list of items by a key function */
-	private <K, V> Map<K, List<V>> groupBy(List<V> list, Function<V, K> keyMaker) {
-		Map<K, List<V>> map = new HashMap<>();
+	/** Group a list of items by a key function, keeping the groups in order of first appearance */
+	private static <K, V> Map<K, List<V>> groupBy(List<V> list, Function<V, K> keyMaker) {
+		Map<K, List<V>> map = new LinkedHashMap<>();
 		for (V item : list) {
 			K key = keyMaker.apply(item);
 			List<V> group = map.computeIfAbsent(key, k -> new ArrayList<>());
@@ -81,7 +461,7 @@ public class Lexicon {
 	}
 	
 	/** Attempt to find the best pronunciation for a word with multiple pronunciations */
-	private List<LexiconEntry> findBestPronunciation(List<LexiconEntry> alternates) {
+	private static List<LexiconEntry> findBestPronunciation(List<LexiconEntry> alternates) {
 		if (alternates.size() <= 1) {
 			return alternates;
 		}
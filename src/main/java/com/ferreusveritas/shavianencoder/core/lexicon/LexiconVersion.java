@@ -0,0 +1,10 @@
+package com.ferreusveritas.shavianencoder.core.lexicon;
+
+import java.time.Instant;
+
+/** Identifies one load of the dictionary and mapping tables. Numbers start at 1 and go up by one per reload */
+public record LexiconVersion(
+	long number,
+	Instant loadedAt
+) {
+}
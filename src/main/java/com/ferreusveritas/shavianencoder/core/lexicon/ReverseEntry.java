@@ -0,0 +1,11 @@
+package com.ferreusveritas.shavianencoder.core.lexicon;
+
+import com.ferreusveritas.shavianencoder.core.model.UDPosTag;
+
+import java.util.Set;
+
+public record ReverseEntry(
+	String headword,
+	Set<UDPosTag> pos
+) {
+}
@@ -0,0 +1,185 @@
+package com.ferreusveritas.shavianencoder.core.lexicon;
+
+import com.ferreusveritas.shavianencoder.core.model.UDPosTag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+/**
+ * Shavian spellings back to the English headwords that produce them, built from a {@link Lexicon} and sharing
+ * its spelling pool. A lookup hashes the spelling once and probes a table, so it costs O(length) regardless of
+ * lexicon size. Candidates for a spelling are ranked with the most likely reading first.
+ */
+public class ReverseLexicon {
+	
+	private static final Logger LOG = LoggerFactory.getLogger(ReverseLexicon.class);
+	
+	private static final int EMPTY = -1;
+	
+	/** Lower ranks come first. Function words are far more frequent than content words, which beat names */
+	private static final Map<UDPosTag, Integer> POS_RANK = new EnumMap<>(Map.ofEntries(
+		Map.entry(UDPosTag.DET, 0), Map.entry(UDPosTag.PRON, 0), Map.entry(UDPosTag.ADP, 0),
+		Map.entry(UDPosTag.AUX, 0), Map.entry(UDPosTag.CCONJ, 0), Map.entry(UDPosTag.SCONJ, 0),
+		Map.entry(UDPosTag.PART, 0), Map.entry(UDPosTag.CONT, 0),
+		Map.entry(UDPosTag.VERB, 1), Map.entry(UDPosTag.NOUN, 1), Map.entry(UDPosTag.ADJ, 1),
+		Map.entry(UDPosTag.ADV, 1), Map.entry(UDPosTag.NUM, 1), Map.entry(UDPosTag.INTJ, 1),
+		Map.entry(UDPosTag.PROPN, 3), Map.entry(UDPosTag.ABBR, 4)
+	));
+	private static final int DEFAULT_RANK = 2;
+	
+	private final Lexicon lexicon;
+	
+	// Linear probing table of spelling ids, EMPTY where unused
+	private final int[] table;
+	private final int[] spellingHashes;
+	
+	// The candidates for spelling i are candidateOffsets[i] .. candidateOffsets[i + 1], best first
+	private final int[] candidateOffsets;
+	private final int[] candidateHeadword;
+	private final int[] candidatePos;
+	
+	private final Map<Integer, Set<UDPosTag>> posSets = new HashMap<>();
+	
+	public ReverseLexicon(Lexicon lexicon) {
+		this.lexicon = lexicon;
+		int spellings = lexicon.spellingCount();
+		
+		// Merge the entries of each headword that share a spelling, so a headword is listed once per spelling.
+		// An empty headword would decode a spelling to nothing, so it is left out
+		Map<Long, Integer> merged = new HashMap<>();
+		int[] counts = new int[spellings + 1];
+		for (int headword = 0; headword < lexicon.size(); headword++) {
+			if (lexicon.headwordLength(headword) == 0) {
+				continue;
+			}
+			for (int entry = lexicon.entryStart(headword); entry < lexicon.entryStart(headword + 1); entry++) {
+				int spelling = lexicon.entrySpelling(entry);
+				long key = ((long) spelling << 32) | headword;
+				Integer mask = merged.get(key);
+				if (mask == null) {
+					counts[spelling + 1]++;
+				}
+				merged.put(key, (mask == null ? 0 : mask) | lexicon.entryPosMask(entry));
+			}
+		}
+		
+		this.candidateOffsets = new int[spellings + 1];
+		for (int i = 0; i < spellings; i++) {
+			candidateOffsets[i + 1] = candidateOffsets[i] + counts[i + 1];
+		}
+		int total = candidateOffsets[spellings];
+		this.candidateHeadword = new int[total];
+		this.candidatePos = new int[total];
+		int[] fill = Arrays.copyOf(candidateOffsets, spellings);
+		merged.forEach((key, mask) -> {
+			int slot = fill[(int) (key >>> 32)]++;
+			candidateHeadword[slot] = (int) (long) key;
+			candidatePos[slot] = mask;
+			posSets.computeIfAbsent(mask, Lexicon::fromMask);
+		});
+		for (int i = 0; i < spellings; i++) {
+			sortCandidates(candidateOffsets[i], candidateOffsets[i + 1]);
+		}
+		
+		this.spellingHashes = new int[spellings];
+		this.table = new int[Integer.highestOneBit(Math.max(spellings, 1) * 2) * 2];
+		Arrays.fill(table, EMPTY);
+		for (int i = 0; i < spellings; i++) {
+			spellingHashes[i] = lexicon.spellingHash(i);
+			if (candidateOffsets[i] == candidateOffsets[i + 1]) {
+				continue; // Only spelled by an empty headword
+			}
+			int slot = mix(spellingHashes[i]) & (table.length - 1);
+			while (table[slot] != EMPTY) {
+				slot = (slot + 1) & (table.length - 1);
+			}
+			table[slot] = i;
+		}
+		
+		LOG.info("Reverse lexicon holds {} spellings and {} candidates in {} KiB", spellings, total, footprintBytes() / 1024);
+	}
+	
+	public boolean hasSpelling(String shavian) {
+		return indexOf(shavian) != EMPTY;
+	}
+	
+	/** English candidates for a Shavian spelling, most likely first, or an empty list if there are none */
+	public List<ReverseEntry> getHeadwords(String shavian) {
+		int spelling = indexOf(shavian);
+		if (spelling == EMPTY) {
+			return List.of();
+		}
+		int from = candidateOffsets[spelling];
+		int to = candidateOffsets[spelling + 1];
+		ReverseEntry[] result = new ReverseEntry[to - from];
+		for (int i = from; i < to; i++) {
+			result[i - from] = new ReverseEntry(lexicon.headwordAt(candidateHeadword[i]), posSets.get(candidatePos[i]));
+		}
+		return List.of(result);
+	}
+	
+	/** The most likely English headword for a Shavian spelling, or null if there is none */
+	public String getBestHeadword(String shavian) {
+		int spelling = indexOf(shavian);
+		return spelling == EMPTY ? null : lexicon.headwordAt(candidateHeadword[candidateOffsets[spelling]]);
+	}
+	
+	/** Approximate heap used by the index arrays, not counting the lexicon it shares */
+	public long footprintBytes() {
+		return 4L * (table.length + spellingHashes.length + candidateOffsets.length + candidateHeadword.length + candidatePos.length);
+	}
+	
+	private int indexOf(String shavian) {
+		int hash = shavian.hashCode();
+		int slot = mix(hash) & (table.length - 1);
+		int index;
+		while ((index = table[slot]) != EMPTY) {
+			if (spellingHashes[index] == hash && lexicon.spellingEquals(index, shavian)) {
+				return index;
+			}
+			slot = (slot + 1) & (table.length - 1);
+		}
+		return EMPTY;
+	}
+	
+	/** Insertion sort, the candidate lists are almost always tiny */
+	private void sortCandidates(int from, int to) {
+		for (int i = from + 1; i < to; i++) {
+			int headword = candidateHeadword[i];
+			int pos = candidatePos[i];
+			int j = i - 1;
+			while (j >= from && compare(candidateHeadword[j], candidatePos[j], headword, pos) > 0) {
+				candidateHeadword[j + 1] = candidateHeadword[j];
+				candidatePos[j + 1] = candidatePos[j];
+				j--;
+			}
+			candidateHeadword[j + 1] = headword;
+			candidatePos[j + 1] = pos;
+		}
+	}
+	
+	/** Best part of speech rank, then shorter headwords, then headword order */
+	private int compare(int headwordA, int posA, int headwordB, int posB) {
+		int result = Integer.compare(rank(posA), rank(posB));
+		if (result == 0) {
+			result = Integer.compare(lexicon.headwordLength(headwordA), lexicon.headwordLength(headwordB));
+		}
+		return result != 0 ? result : Integer.compare(headwordA, headwordB);
+	}
+	
+	private static int rank(int mask) {
+		int best = Integer.MAX_VALUE;
+		for (UDPosTag tag : UDPosTag.values()) {
+			if ((mask & (1 << tag.ordinal())) != 0) {
+				best = Math.min(best, POS_RANK.getOrDefault(tag, DEFAULT_RANK));
+			}
+		}
+		return best == Integer.MAX_VALUE ? DEFAULT_RANK : best;
+	}
+	
+	private static int mix(int hash) {
+		return hash ^ (hash >>> 16);
+	}
+	
+}
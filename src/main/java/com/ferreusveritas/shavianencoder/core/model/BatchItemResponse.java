@@ -0,0 +1,16 @@
+package com.ferreusveritas.shavianencoder.core.model;
+
+public record BatchItemResponse(
+	String message, // Transliterated message, null if the item failed
+	String error // Reason the item failed, null on success
+) {
+	
+	public static BatchItemResponse success(String message) {
+		return new BatchItemResponse(message, null);
+	}
+	
+	public static BatchItemResponse failure(String error) {
+		return new BatchItemResponse(null, error);
+	}
+	
+}
@@ -0,0 +1,8 @@
+package com.ferreusveritas.shavianencoder.core.model;
+
+public record DocumentEdit(
+	int start, // Offset in the English document, in UTF-16 code units
+	int end, // Exclusive, equal to start for a pure insertion
+	String text // Replacement for start .. end, empty for a pure deletion
+) {
+}
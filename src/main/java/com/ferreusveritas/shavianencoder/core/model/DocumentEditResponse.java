@@ -0,0 +1,9 @@
+package com.ferreusveritas.shavianencoder.core.model;
+
+import java.util.List;
+
+public record DocumentEditResponse(
+	List<ShavianSpan> spans, // One per edit, each applying to the output of the ones before it
+	long lexiconVersion
+) {
+}
@@ -0,0 +1,6 @@
+package com.ferreusveritas.shavianencoder.core.model;
+
+public record DocumentRequest(
+	String message // Initial content of the document, may be empty
+) {
+}
@@ -0,0 +1,8 @@
+package com.ferreusveritas.shavianencoder.core.model;
+
+public record DocumentResponse(
+	String id, // Session to send edits to
+	String message, // The whole document transliterated
+	long lexiconVersion // Every edit in the session is transliterated with this version
+) {
+}
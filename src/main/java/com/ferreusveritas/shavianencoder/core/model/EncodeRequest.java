@@ -1,6 +1,7 @@
 package com.ferreusveritas.shavianencoder.core.model;
 
 public record EncodeRequest(
-	String message
+	String message,
+	boolean explain // Include the per-token decisions in the response
 ) {
 }
@@ -0,0 +1,7 @@
+package com.ferreusveritas.shavianencoder.core.model;
+
+public record EnglishResponse(
+	String message,
+	long lexiconVersion
+) {
+}
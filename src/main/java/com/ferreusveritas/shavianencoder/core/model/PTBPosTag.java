@@ -46,7 +46,7 @@ public enum PTBPosTag {
 	}
 	
 	public static PTBPosTag of(String str) {
-		return PTBPosTag.valueOf(str.trim().toUpperCase().replaceAll("\\$", "S"));
+		return PTBPosTag.valueOf(str.trim().toUpperCase().replace('$', 'S'));
 	}
 	
 	public UDPosTag toUD() {
@@ -1,6 +1,18 @@
 package com.ferreusveritas.shavianencoder.core.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
 public record ShavianResponse(
-	String message
+	String message,
+	@JsonInclude(JsonInclude.Include.NON_NULL)
+	List<TokenExplanation> tokens, // Only present when the request asked to explain
+	long lexiconVersion
 ) {
+	
+	public ShavianResponse(String message, long lexiconVersion) {
+		this(message, null, lexiconVersion);
+	}
+	
 }
@@ -0,0 +1,8 @@
+package com.ferreusveritas.shavianencoder.core.model;
+
+public record ShavianSpan(
+	int start, // Offset in the Shavian document as it was before this span, in UTF-16 code units
+	int end, // Exclusive
+	String text // Replacement for start .. end
+) {
+}
@@ -0,0 +1,11 @@
+package com.ferreusveritas.shavianencoder.core.model;
+
+/** How one token was transliterated, returned when a request asks for an explanation */
+public record TokenExplanation(
+	String token, // The token as it appeared in the input
+	UDPosTag pos, // Part of Speech Tag
+	String lemma, // Lemmatized form of the token
+	TokenSource source, // The rule that produced the Shavian
+	String shavian // The Shavian chosen for the token
+) {
+}
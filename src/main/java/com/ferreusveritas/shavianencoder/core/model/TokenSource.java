@@ -0,0 +1,23 @@
+package com.ferreusveritas.shavianencoder.core.model;
+
+/** Which rule of the transliterator produced the Shavian for a token */
+public enum TokenSource {
+	WHITESPACE, // copied through
+	ABBREVIATION, // one of the standard Shavian abbreviations
+	SYMBOL, // symbols and punctuation, copied through
+	NUMBER, // digits, copied through
+	POSSESSIVE, // built from the base word plus an s sound
+	LEXICON, // found in the lexicon
+	LEMMA, // not in the lexicon, inflected from its lemma
+	CAMEL_CASE, // not in the lexicon, joined from the parts of a camelCase word
+	UNKNOWN; // not in the lexicon and no guess, copied through
+	
+	public boolean isOutOfVocabulary() {
+		return this == LEMMA || this == CAMEL_CASE || this == UNKNOWN;
+	}
+	
+	public boolean isGuessed() {
+		return this == LEMMA || this == CAMEL_CASE;
+	}
+	
+}
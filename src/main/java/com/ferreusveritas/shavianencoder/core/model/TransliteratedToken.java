@@ -0,0 +1,6 @@
+package com.ferreusveritas.shavianencoder.core.model;
+
+public record TransliteratedToken(
+	String shavian,
+	TokenSource source
+) {}
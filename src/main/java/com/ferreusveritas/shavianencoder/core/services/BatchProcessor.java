@@ -0,0 +1,93 @@
+package com.ferreusveritas.shavianencoder.core.services;
+
+import com.ferreusveritas.shavianencoder.core.model.BatchItemResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.UnaryOperator;
+
+/** Runs batches of independent messages on the batch pool, shared by the encode and decode endpoints */
+@Component
+@ConditionalOnWebApplication
+public class BatchProcessor {
+	
+	private static final Logger LOG = LoggerFactory.getLogger(BatchProcessor.class);
+	
+	private final ExecutorService batchExecutor;
+	private final int maxBatchItems;
+	private final long maxBatchChars;
+	
+	@Autowired
+	public BatchProcessor(
+		@Qualifier("batchExecutor") ExecutorService batchExecutor,
+		@Value("${shavian.batch.max-items:1000}") int maxBatchItems,
+		@Value("${shavian.batch.max-chars:1000000}") long maxBatchChars
+	) {
+		this.batchExecutor = batchExecutor;
+		this.maxBatchItems = maxBatchItems;
+		this.maxBatchChars = maxBatchChars;
+	}
+	
+	/**
+	 * Apply work to every message on the batch pool. Results are in input order and a failed item never fails the
+	 * batch. A null or empty message (or a null item, mapped to null by the caller) fails only its own slot.
+	 */
+	public List<BatchItemResponse> process(List<String> messages, UnaryOperator<String> work) {
+		checkBatchLimits(messages);
+		
+		List<Future<String>> futures = new ArrayList<>(messages.size());
+		for (String message : messages) {
+			futures.add(message != null && !message.isEmpty() ? batchExecutor.submit(() -> work.apply(message)) : null);
+		}
+		
+		List<BatchItemResponse> results = new ArrayList<>(messages.size());
+		try {
+			for (Future<String> future : futures) {
+				results.add(collect(future));
+			}
+		} catch (InterruptedException e) {
+			futures.stream().filter(Objects::nonNull).forEach(f -> f.cancel(true));
+			Thread.currentThread().interrupt();
+			throw new ServiceOverloadedException("Batch interrupted", e);
+		}
+		return results;
+	}
+	
+	private BatchItemResponse collect(Future<String> future) throws InterruptedException {
+		if (future == null) {
+			return BatchItemResponse.failure("message is required");
+		}
+		try {
+			return BatchItemResponse.success(future.get());
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			LOG.debug("Batch item failed", cause);
+			return BatchItemResponse.failure(cause.getClass().getSimpleName() + ": " + cause.getMessage());
+		}
+	}
+	
+	private void checkBatchLimits(List<String> messages) {
+		if (messages.size() > maxBatchItems) {
+			throw new LimitExceededException("Batch has " + messages.size() + " items, the limit is " + maxBatchItems);
+		}
+		long chars = messages.stream()
+			.filter(Objects::nonNull)
+			.mapToLong(String::length)
+			.sum();
+		if (chars > maxBatchChars) {
+			throw new LimitExceededException("Batch has " + chars + " characters, the limit is " + maxBatchChars);
+		}
+	}
+	
+}
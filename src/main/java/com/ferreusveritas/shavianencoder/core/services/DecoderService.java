@@ -0,0 +1,48 @@
+package com.ferreusveritas.shavianencoder.core.services;
+
+import com.ferreusveritas.shavianencoder.core.decoder.Decoder;
+import com.ferreusveritas.shavianencoder.core.lexicon.ReverseEntry;
+import com.ferreusveritas.shavianencoder.core.model.BatchItemResponse;
+import com.ferreusveritas.shavianencoder.core.model.DecodeRequest;
+import com.ferreusveritas.shavianencoder.core.model.EnglishResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+@Service
+@ConditionalOnWebApplication
+public class DecoderService {
+	
+	private final LexiconService lexiconService;
+	private final BatchProcessor batchProcessor;
+	
+	@Autowired
+	public DecoderService(
+		LexiconService lexiconService,
+		BatchProcessor batchProcessor
+	) {
+		this.lexiconService = lexiconService;
+		this.batchProcessor = batchProcessor;
+	}
+	
+	public EnglishResponse decode(DecodeRequest request) {
+		Pipeline pipeline = lexiconService.current();
+		return new EnglishResponse(pipeline.decoder().decode(request.message()), pipeline.version().number());
+	}
+	
+	/** Decode every request on the batch pool, with the same limits and per-item failures as encoding */
+	public List<BatchItemResponse> decodeBatch(List<DecodeRequest> requests) {
+		List<String> messages = requests.stream()
+			.map(request -> request != null ? request.message() : null)
+			.toList();
+		Decoder decoder = lexiconService.current().decoder();
+		return batchProcessor.process(messages, decoder::decode);
+	}
+	
+	public List<ReverseEntry> candidates(String spelling) {
+		return lexiconService.current().decoder().candidates(spelling);
+	}
+	
+}
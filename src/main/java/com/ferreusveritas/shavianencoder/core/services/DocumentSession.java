@@ -0,0 +1,137 @@
+package com.ferreusveritas.shavianencoder.core.services;
+
+import com.ferreusveritas.shavianencoder.core.model.DocumentEdit;
+import com.ferreusveritas.shavianencoder.core.model.ShavianSpan;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * A document being edited live, held as its sentences alongside their transliterations.
+ * An edit re-splits only the sentences it touches plus one either side, since a change at the start or end of a
+ * sentence can move the boundary with its neighbour. Of those, sentences that come out unchanged keep their
+ * transliteration and only the rest go through the transliterator again.
+ */
+class DocumentSession {
+	
+	private record Segment(String english, String shavian) {}
+	
+	private final String id;
+	private final Pipeline pipeline;
+	private final List<Segment> segments = new ArrayList<>(); // guarded by this
+	private int length; // guarded by this
+	private volatile long lastUsed = System.nanoTime();
+	
+	DocumentSession(String id, Pipeline pipeline, String english, IntConsumer transliterated) {
+		this.id = id;
+		this.pipeline = pipeline;
+		List<String> sentences = pipeline.transliterator().sentences(english);
+		for (String sentence : sentences) {
+			segments.add(new Segment(sentence, pipeline.transliterator().transliterate(sentence)));
+		}
+		this.length = english.length();
+		transliterated.accept(sentences.size());
+	}
+	
+	String id() {
+		return id;
+	}
+	
+	Pipeline pipeline() {
+		return pipeline;
+	}
+	
+	long lastUsed() {
+		return lastUsed;
+	}
+	
+	void touch() {
+		lastUsed = System.nanoTime();
+	}
+	
+	synchronized String shavian() {
+		StringBuilder out = new StringBuilder();
+		for (Segment segment : segments) {
+			out.append(segment.shavian());
+		}
+		return out.toString();
+	}
+	
+	/**
+	 * Apply one edit and return the part of the Shavian document it changed
+	 * @param maxLength the longest the document may become, checked before anything is changed
+	 * @param transliterated told how many sentences had to be transliterated again
+	 */
+	synchronized ShavianSpan apply(DocumentEdit edit, int maxLength, IntConsumer transliterated) {
+		if (edit == null || edit.text() == null) {
+			throw new InvalidEditException("Edit has no text");
+		}
+		if (edit.start() < 0 || edit.end() < edit.start() || edit.end() > length) {
+			throw new InvalidEditException("Edit " + edit.start() + ".." + edit.end() + " is outside the document of length " + length);
+		}
+		long newLength = (long) length + edit.text().length() - (edit.end() - edit.start());
+		if (newLength > maxLength) {
+			throw new LimitExceededException("Edit would make the document " + newLength + " characters, the limit is " + maxLength);
+		}
+		int from = Math.max(segmentAt(edit.start()) - 1, 0);
+		int to = Math.min(segmentAt(edit.end()) + 2, segments.size());
+		
+		int regionStart = 0;
+		int shavianStart = 0;
+		for (int i = 0; i < from; i++) {
+			regionStart += segments.get(i).english().length();
+			shavianStart += segments.get(i).shavian().length();
+		}
+		StringBuilder region = new StringBuilder();
+		for (int i = from; i < to; i++) {
+			region.append(segments.get(i).english());
+		}
+		region.replace(edit.start() - regionStart, edit.end() - regionStart, edit.text());
+		List<String> sentences = pipeline.transliterator().sentences(region.toString());
+		
+		// Sentences at either end of the region that are unchanged keep their transliteration
+		List<Segment> old = segments.subList(from, to);
+		int prefix = 0;
+		while (prefix < old.size() && prefix < sentences.size() && old.get(prefix).english().equals(sentences.get(prefix))) {
+			shavianStart += old.get(prefix).shavian().length();
+			prefix++;
+		}
+		int suffix = 0;
+		while (suffix < old.size() - prefix && suffix < sentences.size() - prefix
+			&& old.get(old.size() - 1 - suffix).english().equals(sentences.get(sentences.size() - 1 - suffix))) {
+			suffix++;
+		}
+		
+		List<Segment> changed = old.subList(prefix, old.size() - suffix);
+		int shavianEnd = shavianStart;
+		for (Segment segment : changed) {
+			shavianEnd += segment.shavian().length();
+		}
+		List<Segment> replacements = new ArrayList<>();
+		StringBuilder shavian = new StringBuilder();
+		for (String sentence : sentences.subList(prefix, sentences.size() - suffix)) {
+			Segment segment = new Segment(sentence, pipeline.transliterator().transliterate(sentence));
+			replacements.add(segment);
+			shavian.append(segment.shavian());
+		}
+		changed.clear();
+		changed.addAll(replacements);
+		length += edit.text().length() - (edit.end() - edit.start());
+		transliterated.accept(replacements.size());
+		return new ShavianSpan(shavianStart, shavianEnd, shavian.toString());
+	}
+	
+	/** Index of the segment holding the character at offset, the last segment for the end of the document */
+	private int segmentAt(int offset) {
+		int end = 0;
+		for (int i = 0; i < segments.size(); i++) {
+			end += segments.get(i).english().length();
+			if (offset < end) {
+				return i;
+			}
+		}
+		return Math.max(segments.size() - 1, 0);
+	}
+	
+}
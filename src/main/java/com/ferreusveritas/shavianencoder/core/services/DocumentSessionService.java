@@ -0,0 +1,187 @@
+package com.ferreusveritas.shavianencoder.core.services;
+
+import com.ferreusveritas.shavianencoder.core.model.DocumentEdit;
+import com.ferreusveritas.shavianencoder.core.model.DocumentEditResponse;
+import com.ferreusveritas.shavianencoder.core.model.DocumentResponse;
+import com.ferreusveritas.shavianencoder.core.model.ShavianSpan;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Documents kept open for live editors, which send edits and get back only the parts of the transliteration that
+ * changed. A session is transliterated throughout with the lexicon version current when it was opened, so a reload
+ * never leaves a document half in one version and half in another. Sessions unused for the ttl are dropped.
+ * Both how many sessions are open and how long each document may grow are capped, so that a few clients can't hold
+ * unbounded memory.
+ */
+@Service
+@ConditionalOnWebApplication
+public class DocumentSessionService {
+	
+	private static final Logger LOG = LoggerFactory.getLogger(DocumentSessionService.class);
+	
+	private final LexiconService lexiconService;
+	private final long ttlNanos;
+	private final int maxSessions;
+	private final int maxLength;
+	private final Map<String, DocumentSession> sessions = new ConcurrentHashMap<>();
+	/** Slots taken, reserved before a session is built so that concurrent opens can't go over maxSessions */
+	private final AtomicInteger reserved = new AtomicInteger();
+	private final ScheduledExecutorService sweeper;
+	
+	private final Counter expiredCounter;
+	private final Counter sentenceCounter;
+	
+	@Autowired
+	public DocumentSessionService(
+		LexiconService lexiconService,
+		MeterRegistry meterRegistry,
+		@Value("${shavian.session.ttl:10m}") Duration ttl,
+		@Value("${shavian.session.max-sessions:1000}") int maxSessions,
+		@Value("${shavian.session.max-length:200000}") int maxLength
+	) {
+		this.lexiconService = lexiconService;
+		this.ttlNanos = ttl.toNanos();
+		this.maxSessions = maxSessions;
+		this.maxLength = maxLength;
+		this.expiredCounter = Counter.builder("shavian.sessions.expired")
+			.description("Document sessions dropped after going unused for the ttl")
+			.register(meterRegistry);
+		this.sentenceCounter = Counter.builder("shavian.sessions.sentences")
+			.description("Sentences transliterated for document sessions, on opening and after edits")
+			.register(meterRegistry);
+		Gauge.builder("shavian.sessions.open", sessions, Map::size)
+			.description("Document sessions currently open")
+			.register(meterRegistry);
+		
+		long sweep = Math.max(ttl.dividedBy(4).toMillis(), 1000);
+		this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "shavian-session-expiry");
+			thread.setDaemon(true);
+			return thread;
+		});
+		sweeper.scheduleWithFixedDelay(this::expire, sweep, sweep, TimeUnit.MILLISECONDS);
+	}
+	
+	@PreDestroy
+	void shutdown() {
+		sweeper.shutdownNow();
+	}
+	
+	public DocumentResponse open(String message) {
+		String english = message != null ? message : "";
+		if (english.length() > maxLength) {
+			throw new LimitExceededException("Document has " + english.length() + " characters, the limit is " + maxLength);
+		}
+		if (reserved.incrementAndGet() > maxSessions) {
+			reserved.decrementAndGet();
+			throw new ServiceOverloadedException("Too many document sessions open");
+		}
+		DocumentSession session;
+		try {
+			session = new DocumentSession(UUID.randomUUID().toString(), lexiconService.current(), english, sentenceCounter::increment);
+		} catch (RuntimeException e) {
+			reserved.decrementAndGet();
+			throw e;
+		}
+		sessions.put(session.id(), session);
+		return new DocumentResponse(session.id(), session.shavian(), session.pipeline().version().number());
+	}
+	
+	/** Apply edits in order, each against the document as the edits before it left it */
+	public DocumentEditResponse edit(String id, List<DocumentEdit> edits) {
+		if (edits == null) {
+			throw new InvalidEditException("edits are required");
+		}
+		DocumentSession session = get(id);
+		List<ShavianSpan> spans = new ArrayList<>(edits.size());
+		try {
+			for (DocumentEdit edit : edits) {
+				spans.add(session.apply(edit, maxLength, sentenceCounter::increment));
+			}
+		} catch (InvalidEditException | LimitExceededException e) {
+			// Edits before this one were applied, so the client and server copies may now differ and the client has to
+			// reopen the document. Anything else thrown while transliterating is a server error and keeps the session
+			remove(id);
+			if (e instanceof LimitExceededException) {
+				throw new LimitExceededException(e.getMessage() + "; session closed");
+			}
+			throw new InvalidEditException(e.getMessage() + "; session closed", e);
+		}
+		return new DocumentEditResponse(spans, session.pipeline().version().number());
+	}
+	
+	/** The whole transliterated document, for a client that has lost track of it */
+	public DocumentResponse document(String id) {
+		DocumentSession session = get(id);
+		return new DocumentResponse(session.id(), session.shavian(), session.pipeline().version().number());
+	}
+	
+	public void close(String id) {
+		if (!remove(id)) {
+			throw notFound(id);
+		}
+	}
+	
+	/** Drop a session and give its slot back, false if it was already gone */
+	private boolean remove(String id) {
+		if (sessions.remove(id) == null) {
+			return false;
+		}
+		reserved.decrementAndGet();
+		return true;
+	}
+	
+	private DocumentSession get(String id) {
+		DocumentSession session = sessions.get(id);
+		if (session == null || isExpired(session, System.nanoTime())) {
+			throw notFound(id);
+		}
+		session.touch();
+		return session;
+	}
+	
+	private void expire() {
+		long now = System.nanoTime();
+		int expired = 0;
+		for (DocumentSession session : sessions.values()) {
+			// Only the removal that wins against a concurrent close gives the slot back
+			if (isExpired(session, now) && sessions.remove(session.id(), session)) {
+				reserved.decrementAndGet();
+				expiredCounter.increment();
+				expired++;
+			}
+		}
+		if (expired > 0) {
+			LOG.debug("Expired {} document sessions", expired);
+		}
+	}
+	
+	private boolean isExpired(DocumentSession session, long now) {
+		return now - session.lastUsed() > ttlNanos;
+	}
+	
+	private static SessionNotFoundException notFound(String id) {
+		return new SessionNotFoundException("No open document session " + id);
+	}
+	
+}
@@ -1,26 +1,128 @@
 package com.ferreusveritas.shavianencoder.core.services;
 
-import com.ferreusveritas.shavianencoder.core.encoder.Transliterator;
+import com.ferreusveritas.shavianencoder.core.model.BatchItemResponse;
 import com.ferreusveritas.shavianencoder.core.model.EncodeRequest;
 import com.ferreusveritas.shavianencoder.core.model.ShavianResponse;
+import com.ferreusveritas.shavianencoder.core.model.TokenExplanation;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
 @Service
+@ConditionalOnWebApplication
 public class EncoderService {
 	
-	private final Transliterator transliterator;
+	private final LexiconService lexiconService;
+	private final BatchProcessor batchProcessor;
+	private final Executor requestExecutor;
+	
+	private final Timer encodeTimer;
+	private final Timer streamTimer;
+	private final Timer batchTimer;
+	private final DistributionSummary messageSize;
 	
 	@Autowired
 	public EncoderService(
-		Transliterator transliterator
+		LexiconService lexiconService,
+		BatchProcessor batchProcessor,
+		@Qualifier("requestExecutor") Executor requestExecutor,
+		MeterRegistry meterRegistry
 	) {
-		this.transliterator = transliterator;
+		this.lexiconService = lexiconService;
+		this.batchProcessor = batchProcessor;
+		this.requestExecutor = requestExecutor;
+		this.encodeTimer = encodeTimer("single", meterRegistry);
+		this.streamTimer = encodeTimer("stream", meterRegistry);
+		this.batchTimer = encodeTimer("batch", meterRegistry);
+		this.messageSize = DistributionSummary.builder("shavian.encode.message.size")
+			.baseUnit("characters")
+			.description("Length of each message encoded")
+			.register(meterRegistry);
+	}
+	
+	private static Timer encodeTimer(String operation, MeterRegistry meterRegistry) {
+		return Timer.builder("shavian.encode")
+			.tag("operation", operation)
+			.description("Time to encode a request, including queueing for batches")
+			.register(meterRegistry);
 	}
 	
 	public ShavianResponse encode(EncodeRequest request) {
-		String result = transliterator.transliterate(request.message());
-		return new ShavianResponse(result);
+		return encodeTimer.record(() -> transliterate(request));
+	}
+	
+	/** Encode on the request executor, which may release the servlet thread while the work is queued or running */
+	public CompletableFuture<ShavianResponse> encodeAsync(EncodeRequest request) {
+		return submit(() -> encode(request));
+	}
+	
+	public CompletableFuture<List<BatchItemResponse>> encodeBatchAsync(List<EncodeRequest> requests) {
+		return submit(() -> encodeBatch(requests));
+	}
+	
+	private <T> CompletableFuture<T> submit(Supplier<T> work) {
+		try {
+			return CompletableFuture.supplyAsync(work, requestExecutor);
+		} catch (RejectedExecutionException e) {
+			throw new ServiceOverloadedException("Too many encode requests queued", e);
+		}
+	}
+	
+	private ShavianResponse transliterate(EncodeRequest request) {
+		return transliterate(lexiconService.current(), request);
+	}
+	
+	private ShavianResponse transliterate(Pipeline pipeline, EncodeRequest request) {
+		messageSize.record(request.message().length());
+		long version = pipeline.version().number();
+		if (request.explain()) {
+			List<TokenExplanation> explanations = new ArrayList<>();
+			String result = pipeline.transliterator().transliterate(request.message(), explanations);
+			return new ShavianResponse(result, explanations, version);
+		}
+		String result = pipeline.transliterator().transliterate(request.message());
+		return new ShavianResponse(result, version);
+	}
+	
+	/** The whole stream is encoded with the lexicon version current when it started */
+	public void encodeStream(Reader input, Writer output) throws IOException {
+		long start = System.nanoTime();
+		try {
+			lexiconService.current().transliterator().transliterate(input, output);
+		} finally {
+			streamTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		}
+	}
+	
+	/**
+	 * Encode every request on the batch pool. Results are in input order and a failed item never fails the batch.
+	 * Every item is encoded with the same lexicon version.
+	 */
+	public List<BatchItemResponse> encodeBatch(List<EncodeRequest> requests) {
+		long start = System.nanoTime();
+		Pipeline pipeline = lexiconService.current();
+		List<String> messages = requests.stream()
+			.map(request -> request != null ? request.message() : null)
+			.toList();
+		// Batch responses have no room for explanations, so items are always encoded without
+		List<BatchItemResponse> results = batchProcessor.process(messages, message -> transliterate(pipeline, new EncodeRequest(message, false)).message());
+		batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		return results;
 	}
 	
 }
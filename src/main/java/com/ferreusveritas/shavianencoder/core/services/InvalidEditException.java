@@ -0,0 +1,14 @@
+package com.ferreusveritas.shavianencoder.core.services;
+
+/** An edit that doesn't fit the document it was sent for */
+public class InvalidEditException extends RuntimeException {
+	
+	public InvalidEditException(String message) {
+		super(message);
+	}
+	
+	public InvalidEditException(String message, Throwable cause) {
+		super(message, cause);
+	}
+	
+}
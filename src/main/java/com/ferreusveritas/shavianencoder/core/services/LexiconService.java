@@ -0,0 +1,121 @@
+package com.ferreusveritas.shavianencoder.core.services;
+
+import com.ferreusveritas.shavianencoder.core.lexicon.LexiconVersion;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the active pipeline and swaps in rebuilt ones. A reload builds the new version in the background while
+ * requests carry on with the old one; requests that started before the swap finish on the version they took, and the
+ * old version becomes garbage once the last of them is done.
+ */
+@Service
+public class LexiconService {
+	
+	private static final Logger LOG = LoggerFactory.getLogger(LexiconService.class);
+	
+	private static final Cleaner CLEANER = Cleaner.create();
+	
+	private final PipelineFactory pipelineFactory;
+	private final AtomicReference<Pipeline> current = new AtomicReference<>();
+	private final AtomicInteger live = new AtomicInteger();
+	private final ExecutorService reloadExecutor = Executors.newSingleThreadExecutor(r -> {
+		Thread thread = new Thread(r, "shavian-lexicon-reload");
+		thread.setDaemon(true);
+		return thread;
+	});
+	
+	private final Timer reloadSuccessTimer;
+	private final Timer reloadFailureTimer;
+	
+	private CompletableFuture<LexiconVersion> pending; // guarded by this
+	
+	@Autowired
+	public LexiconService(
+		PipelineFactory pipelineFactory,
+		MeterRegistry meterRegistry
+	) throws IOException {
+		this.pipelineFactory = pipelineFactory;
+		this.reloadSuccessTimer = reloadTimer("success", meterRegistry);
+		this.reloadFailureTimer = reloadTimer("failure", meterRegistry);
+		current.set(track(pipelineFactory.build(1)));
+		Gauge.builder("shavian.lexicon.version", current, c -> c.get().version().number())
+			.description("Number of the lexicon version new requests are served from")
+			.register(meterRegistry);
+		Gauge.builder("shavian.lexicon.live", live, AtomicInteger::get)
+			.description("Lexicon versions not yet garbage collected, including the current one")
+			.register(meterRegistry);
+	}
+	
+	private static Timer reloadTimer(String result, MeterRegistry meterRegistry) {
+		return Timer.builder("shavian.lexicon.reload")
+			.tag("result", result)
+			.description("Time to build a new lexicon version")
+			.register(meterRegistry);
+	}
+	
+	public Pipeline current() {
+		return current.get();
+	}
+	
+	public LexiconVersion version() {
+		return current.get().version();
+	}
+	
+	/**
+	 * Start building a new version in the background and swap it in when it is ready. If the build fails the current
+	 * version stays active.
+	 * @throws ReloadInProgressException if the previous reload is still running
+	 */
+	public synchronized CompletableFuture<LexiconVersion> reload() {
+		if (pending != null && !pending.isDone()) {
+			throw new ReloadInProgressException("Lexicon version " + (version().number() + 1) + " is still being built");
+		}
+		pending = CompletableFuture.supplyAsync(this::rebuild, reloadExecutor);
+		return pending;
+	}
+	
+	/** Only ever runs on the reload thread, so version numbers are handed out without gaps */
+	private LexiconVersion rebuild() {
+		long start = System.nanoTime();
+		long number = current.get().version().number() + 1;
+		try {
+			Pipeline next = track(pipelineFactory.build(number));
+			Pipeline previous = current.getAndSet(next);
+			reloadSuccessTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+			LOG.info("Lexicon version {} is active, replacing version {}", number, previous.version().number());
+			return next.version();
+		} catch (IOException | RuntimeException e) {
+			reloadFailureTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+			LOG.error("Failed to build lexicon version {}, keeping version {}", number, current.get().version().number(), e);
+			throw e instanceof IOException io ? new UncheckedIOException(io) : (RuntimeException) e;
+		}
+	}
+	
+	/** Count the pipeline as live until its transliterator, which holds the bulk of it, has been collected */
+	private Pipeline track(Pipeline pipeline) {
+		live.incrementAndGet();
+		long number = pipeline.version().number();
+		CLEANER.register(pipeline.transliterator(), () -> {
+			live.decrementAndGet();
+			LOG.debug("Lexicon version {} reclaimed", number);
+		});
+		return pipeline;
+	}
+	
+}
@@ -0,0 +1,10 @@
+package com.ferreusveritas.shavianencoder.core.services;
+
+/** A request larger than a configured limit */
+public class LimitExceededException extends RuntimeException {
+	
+	public LimitExceededException(String message) {
+		super(message);
+	}
+	
+}
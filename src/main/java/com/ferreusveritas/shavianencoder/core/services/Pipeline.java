@@ -0,0 +1,13 @@
+package com.ferreusveritas.shavianencoder.core.services;
+
+import com.ferreusveritas.shavianencoder.core.decoder.Decoder;
+import com.ferreusveritas.shavianencoder.core.encoder.Transliterator;
+import com.ferreusveritas.shavianencoder.core.lexicon.LexiconVersion;
+
+/** Everything built from one lexicon version. A request takes the current pipeline once and uses it throughout */
+public record Pipeline(
+	LexiconVersion version,
+	Transliterator transliterator,
+	Decoder decoder
+) {
+}
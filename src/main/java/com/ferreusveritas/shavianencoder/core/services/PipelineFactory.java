@@ -0,0 +1,10 @@
+package com.ferreusveritas.shavianencoder.core.services;
+
+import java.io.IOException;
+
+public interface PipelineFactory {
+	
+	/** Load the dictionary and mapping tables afresh and build a pipeline on them, stamped with this version number */
+	Pipeline build(long version) throws IOException;
+	
+}
@@ -0,0 +1,10 @@
+package com.ferreusveritas.shavianencoder.core.services;
+
+/** A lexicon reload refused because the previous one hasn't finished */
+public class ReloadInProgressException extends RuntimeException {
+	
+	public ReloadInProgressException(String message) {
+		super(message);
+	}
+	
+}
@@ -0,0 +1,14 @@
+package com.ferreusveritas.shavianencoder.core.services;
+
+/** Work refused because the service is already holding as much as it is configured to */
+public class ServiceOverloadedException extends RuntimeException {
+	
+	public ServiceOverloadedException(String message) {
+		super(message);
+	}
+	
+	public ServiceOverloadedException(String message, Throwable cause) {
+		super(message, cause);
+	}
+	
+}
@@ -0,0 +1,10 @@
+package com.ferreusveritas.shavianencoder.core.services;
+
+/** A document session that was never opened, or was closed or expired since */
+public class SessionNotFoundException extends RuntimeException {
+	
+	public SessionNotFoundException(String message) {
+		super(message);
+	}
+	
+}
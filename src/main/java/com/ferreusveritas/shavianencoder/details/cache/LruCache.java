@@ -0,0 +1,157 @@
+package com.ferreusveritas.shavianencoder.details.cache;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * A bounded least-recently-used cache that is safe to share between threads.
+ * Keys are spread over independently locked segments so concurrent lookups rarely contend.
+ * A cache with a maximum size of zero is disabled and simply computes every value.
+ * Entries may optionally expire a fixed time after they were written.
+ */
+public class LruCache<K, V> {
+	
+	private static final int SEGMENTS = 16;
+	
+	private final Segment<K, V>[] segments;
+	private final boolean enabled;
+	private final long ttlNanos;
+	
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder puts = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+	
+	private record Entry<V>(V value, long written) {}
+	
+	private static class Segment<K, V> extends LinkedHashMap<K, Entry<V>> {
+		
+		private final int capacity;
+		private final LongAdder evictions;
+		
+		Segment(int capacity, LongAdder evictions) {
+			super(16, 0.75f, true);
+			this.capacity = capacity;
+			this.evictions = evictions;
+		}
+		
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+			if (size() > capacity) {
+				evictions.increment();
+				return true;
+			}
+			return false;
+		}
+		
+	}
+	
+	public LruCache(int maxSize) {
+		this(maxSize, Duration.ZERO);
+	}
+	
+	/** @param ttl how long an entry stays valid after it is written, zero or negative for no expiry */
+	@SuppressWarnings("unchecked")
+	public LruCache(int maxSize, Duration ttl) {
+		this.enabled = maxSize > 0;
+		this.ttlNanos = ttl.isNegative() || ttl.isZero() ? 0 : ttl.toNanos();
+		int capacity = Math.max(1, (maxSize + SEGMENTS - 1) / SEGMENTS);
+		this.segments = new Segment[enabled ? SEGMENTS : 0];
+		for (int i = 0; i < segments.length; i++) {
+			segments[i] = new Segment<>(capacity, evictions);
+		}
+	}
+	
+	public boolean isEnabled() {
+		return enabled;
+	}
+	
+	public V get(K key) {
+		if (!enabled) {
+			return null;
+		}
+		Segment<K, V> segment = segmentFor(key);
+		Entry<V> entry;
+		synchronized (segment) {
+			entry = segment.get(key);
+			if (entry != null && isExpired(entry)) {
+				segment.remove(key);
+				evictions.increment();
+				entry = null;
+			}
+		}
+		(entry != null ? hits : misses).increment();
+		return entry != null ? entry.value() : null;
+	}
+	
+	public void put(K key, V value) {
+		if (!enabled) {
+			return;
+		}
+		Segment<K, V> segment = segmentFor(key);
+		synchronized (segment) {
+			segment.put(key, new Entry<>(value, System.nanoTime()));
+		}
+		puts.increment();
+	}
+	
+	/**
+	 * Return the cached value or compute and cache it. The value is computed outside any lock, so the function may
+	 * itself use this cache, and two threads missing on the same key at once may both compute it.
+	 */
+	public V computeIfAbsent(K key, Function<? super K, ? extends V> function) {
+		V value = get(key);
+		if (value == null) {
+			value = function.apply(key);
+			put(key, value);
+		}
+		return value;
+	}
+	
+	public void clear() {
+		for (Segment<K, V> segment : segments) {
+			synchronized (segment) {
+				segment.clear();
+			}
+		}
+	}
+	
+	public long size() {
+		long size = 0;
+		for (Segment<K, V> segment : segments) {
+			synchronized (segment) {
+				size += segment.size();
+			}
+		}
+		return size;
+	}
+	
+	public long hitCount() {
+		return hits.sum();
+	}
+	
+	public long missCount() {
+		return misses.sum();
+	}
+	
+	public long putCount() {
+		return puts.sum();
+	}
+	
+	public long evictionCount() {
+		return evictions.sum();
+	}
+	
+	private boolean isExpired(Entry<V> entry) {
+		return ttlNanos > 0 && System.nanoTime() - entry.written() > ttlNanos;
+	}
+	
+	private Segment<K, V> segmentFor(K key) {
+		int hash = key.hashCode();
+		return segments[(hash ^ (hash >>> 16)) & (SEGMENTS - 1)];
+	}
+	
+}
@@ -0,0 +1,54 @@
+package com.ferreusveritas.shavianencoder.details.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.function.Supplier;
+
+/**
+ * Publishes an {@link LruCache} under the standard Micrometer cache meter names, tagged with the cache name.
+ * The cache is looked up on every read so that it can be replaced, in which case the counters restart from zero.
+ */
+public class LruCacheMetrics implements MeterBinder {
+	
+	private final String name;
+	private final Supplier<LruCache<?, ?>> cache;
+	
+	public LruCacheMetrics(String name, LruCache<?, ?> cache) {
+		this(name, () -> cache);
+	}
+	
+	public LruCacheMetrics(String name, Supplier<LruCache<?, ?>> cache) {
+		this.name = name;
+		this.cache = cache;
+	}
+	
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		Gauge.builder("cache.size", cache, c -> c.get().size())
+			.tag("cache", name)
+			.description("The number of entries in this cache")
+			.register(registry);
+		FunctionCounter.builder("cache.gets", cache, c -> c.get().hitCount())
+			.tag("cache", name)
+			.tag("result", "hit")
+			.description("The number of times cache lookup methods have returned a cached value")
+			.register(registry);
+		FunctionCounter.builder("cache.gets", cache, c -> c.get().missCount())
+			.tag("cache", name)
+			.tag("result", "miss")
+			.description("The number of times cache lookup methods have not returned a value")
+			.register(registry);
+		FunctionCounter.builder("cache.puts", cache, c -> c.get().putCount())
+			.tag("cache", name)
+			.description("The number of entries added to the cache")
+			.register(registry);
+		FunctionCounter.builder("cache.evictions", cache, c -> c.get().evictionCount())
+			.tag("cache", name)
+			.description("The number of times the cache was evicted")
+			.register(registry);
+	}
+	
+}
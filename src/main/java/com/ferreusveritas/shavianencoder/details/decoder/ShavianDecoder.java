@@ -0,0 +1,113 @@
+package com.ferreusveritas.shavianencoder.details.decoder;
+
+import com.ferreusveritas.shavianencoder.core.decoder.Decoder;
+import com.ferreusveritas.shavianencoder.core.lexicon.ReverseEntry;
+import com.ferreusveritas.shavianencoder.core.lexicon.ReverseLexicon;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Turns Shavian back into English one word at a time using the reverse lexicon.
+ * Undoes what the transliterator adds on top of the lexicon: abbreviations, the naming dot of names and camelCase
+ * parts, and possessive endings. Anything else that isn't in the lexicon is left in Shavian.
+ */
+public class ShavianDecoder implements Decoder {
+	
+	private static final int SHAVIAN_FIRST = 0x10450;
+	private static final int SHAVIAN_LAST = 0x1047F;
+	
+	/** The possessive endings getPossessive appends after an apostrophe */
+	private static final List<String> POSSESSIVES = List.of("'𐑦𐑟", "'𐑟", "'𐑕");
+	
+	private final ReverseLexicon reverseLexicon;
+	private final Map<String, String> abbreviations = new HashMap<>();
+	private final String namingDot;
+	
+	public ShavianDecoder(
+		ReverseLexicon reverseLexicon,
+		Map<String, String> abbreviations,
+		String namingDot
+	) {
+		this.reverseLexicon = reverseLexicon;
+		abbreviations.forEach((english, shavian) -> this.abbreviations.put(shavian, english));
+		this.namingDot = namingDot;
+	}
+	
+	@Override
+	public String decode(String shavian) {
+		StringBuilder out = new StringBuilder(shavian.length());
+		int i = 0;
+		while (i < shavian.length()) {
+			int codePoint = shavian.codePointAt(i);
+			if (!isShavian(codePoint) && !shavian.startsWith(namingDot, i)) {
+				out.appendCodePoint(codePoint);
+				i += Character.charCount(codePoint);
+				continue;
+			}
+			int end = i;
+			while (end < shavian.length() && isWordChar(shavian, end)) {
+				end += Character.charCount(shavian.codePointAt(end));
+			}
+			decodeWord(shavian.substring(i, end), out);
+			i = end;
+		}
+		return out.toString();
+	}
+	
+	@Override
+	public List<ReverseEntry> candidates(String spelling) {
+		return reverseLexicon.getHeadwords(spelling);
+	}
+	
+	/** Naming dots start a capitalized part, e.g. ·𐑡𐑪𐑯 is John and 𐑲·𐑓𐑴𐑯 is iPhone */
+	private void decodeWord(String word, StringBuilder out) {
+		int start = 0;
+		boolean capitalize = false;
+		while (start <= word.length()) {
+			int dot = word.indexOf(namingDot, start);
+			int end = dot < 0 ? word.length() : dot;
+			if (end > start) {
+				String english = decodePart(word.substring(start, end));
+				out.append(capitalize && !english.isEmpty() ? Character.toUpperCase(english.charAt(0)) + english.substring(1) : english);
+			}
+			if (dot < 0) {
+				break;
+			}
+			capitalize = true;
+			start = dot + namingDot.length();
+		}
+	}
+	
+	private String decodePart(String part) {
+		String english = abbreviations.get(part);
+		if (english != null) {
+			return english;
+		}
+		english = reverseLexicon.getBestHeadword(part);
+		if (english != null) {
+			return english;
+		}
+		for (String possessive : POSSESSIVES) {
+			if (part.length() > possessive.length() && part.endsWith(possessive)) {
+				return decodePart(part.substring(0, part.length() - possessive.length())) + "'s";
+			}
+		}
+		int apostrophe = part.lastIndexOf('\'');
+		if (apostrophe > 0) {
+			return decodePart(part.substring(0, apostrophe)) + part.substring(apostrophe);
+		}
+		return part;
+	}
+	
+	private boolean isWordChar(String text, int index) {
+		int codePoint = text.codePointAt(index);
+		return isShavian(codePoint) || codePoint == '\'' || text.startsWith(namingDot, index);
+	}
+	
+	private static boolean isShavian(int codePoint) {
+		return codePoint >= SHAVIAN_FIRST && codePoint <= SHAVIAN_LAST;
+	}
+	
+}
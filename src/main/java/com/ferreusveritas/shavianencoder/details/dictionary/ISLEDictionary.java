@@ -2,24 +2,60 @@ package com.ferreusveritas.shavianencoder.details.dictionary;
 
 import com.ferreusveritas.shavianencoder.core.dictionary.Dictionary;
 import com.ferreusveritas.shavianencoder.core.dictionary.DictionaryEntry;
+import com.ferreusveritas.shavianencoder.core.dictionary.PhonemeInventory;
 import com.ferreusveritas.shavianencoder.core.dictionary.Pronunciation;
 import com.ferreusveritas.shavianencoder.core.dictionary.Syllable;
-import com.ferreusveritas.shavianencoder.core.lexicon.Lexicon;
 import com.ferreusveritas.shavianencoder.core.model.PTBPosTag;
 import com.ferreusveritas.shavianencoder.core.model.UDPosTag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.*;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class ISLEDictionary implements Dictionary {
 	
+	private static final Logger LOG = LoggerFactory.getLogger(ISLEDictionary.class);
+	
+	/** Byte ranges at or below this size are parsed on a single thread */
+	private static final int CHUNK_SIZE = 1 << 20;
+	
+	/** Marks a well-formed line whose headword is deliberately left out */
+	private static final DictionaryEntry SKIPPED = new DictionaryEntry("", Set.of(), List.of());
+	
 	private final Map<String, List<DictionaryEntry>> value;
 	
 	public ISLEDictionary(String resource) throws IOException {
-		InputStream stream = Lexicon.class.getResourceAsStream(resource);
-		BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
-		this.value = importISLEDict(reader);
+		URL url = ISLEDictionary.class.getResource(resource);
+		if (url == null) {
+			throw new FileNotFoundException(resource);
+		}
+		if ("file".equals(url.getProtocol())) {
+			try {
+				this.value = importISLEDict(Path.of(url.toURI()));
+			} catch (URISyntaxException e) {
+				throw new IOException(e);
+			}
+		} else {
+			try (InputStream stream = url.openStream()) {
+				this.value = importISLEDict(ByteBuffer.wrap(stream.readAllBytes()));
+			}
+		}
+	}
+	
+	public ISLEDictionary(Path file) throws IOException {
+		this.value = importISLEDict(file);
 	}
 	
 	public ISLEDictionary(BufferedReader reader) throws IOException {
@@ -36,6 +72,31 @@ public class ISLEDictionary implements Dictionary {
 		return value.getOrDefault(word, List.of());
 	}
 	
+	/** Streams the map directly, without the sorted copy that words() makes */
+	@Override
+	public Stream<Map.Entry<String, List<DictionaryEntry>>> stream() {
+		return value.entrySet().stream();
+	}
+	
+	/**
+	 * Approximate heap held by the parsed dictionary: map nodes, headword strings, entry lists and pronunciations.
+	 * Part of speech sets are mostly shared and are left out.
+	 */
+	public long footprintBytes() {
+		long bytes = 16L + 4L * Integer.highestOneBit(Math.max(value.size(), 1) * 2); // Map table
+		for (Map.Entry<String, List<DictionaryEntry>> headword : value.entrySet()) {
+			bytes += 32 + 40 + headword.getKey().length(); // Node and key
+			bytes += 24 + 4L * headword.getValue().size();
+			for (DictionaryEntry entry : headword.getValue()) {
+				bytes += 24 + 24 + 4L * entry.pronunciations().size();
+				for (Pronunciation pronunciation : entry.pronunciations()) {
+					bytes += pronunciation.footprintBytes();
+				}
+			}
+		}
+		return bytes;
+	}
+	
 	private record DictLine(
 		String headword,
 		String tagString,
@@ -43,29 +104,231 @@ public class ISLEDictionary implements Dictionary {
 	) {}
 	
 	public Map<String, List<DictionaryEntry>> importISLEDict(BufferedReader reader) throws IOException {
-		Map<String, List<DictionaryEntry>> dictionary = new HashMap<>();
-		String line;
-		while ((line = reader.readLine()) != null) {
-			DictLine dictLine = readDictLine(line);
-			if (dictLine == null) {
-				continue;
+		String text = reader.lines().collect(Collectors.joining("\n"));
+		return importISLEDict(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)));
+	}
+	
+	public Map<String, List<DictionaryEntry>> importISLEDict(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			return importISLEDict(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+	
+	/** Parse the dictionary in parallel chunks split at line boundaries. The buffer is only read with absolute gets */
+	public Map<String, List<DictionaryEntry>> importISLEDict(ByteBuffer buffer) {
+		return ForkJoinPool.commonPool().invoke(new ImportTask(buffer, 0, buffer.limit()));
+	}
+	
+	private class ImportTask extends RecursiveTask<Map<String, List<DictionaryEntry>>> {
+		
+		private final ByteBuffer buffer;
+		private final int from;
+		private final int to;
+		
+		ImportTask(ByteBuffer buffer, int from, int to) {
+			this.buffer = buffer;
+			this.from = from;
+			this.to = to;
+		}
+		
+		@Override
+		protected Map<String, List<DictionaryEntry>> compute() {
+			int split = to - from > CHUNK_SIZE ? nextLineStart(buffer, from + (to - from) / 2, to) : to;
+			if (split >= to) {
+				byte[] bytes = new byte[to - from];
+				buffer.get(from, bytes);
+				return new ChunkParser(bytes).parse();
+			}
+			ImportTask left = new ImportTask(buffer, from, split);
+			left.fork();
+			Map<String, List<DictionaryEntry>> right = new ImportTask(buffer, split, to).compute();
+			Map<String, List<DictionaryEntry>> merged = left.join();
+			// Append in chunk order so each headword keeps its entries in file order
+			right.forEach((headword, entries) -> merged.computeIfAbsent(headword, k -> new ArrayList<>()).addAll(entries));
+			return merged;
+		}
+		
+	}
+	
+	private static int nextLineStart(ByteBuffer buffer, int pos, int to) {
+		while (pos < to && buffer.get(pos) != '\n') {
+			pos++;
+		}
+		return pos + 1;
+	}
+	
+	/** Single threaded parser for one chunk of whole lines */
+	private class ChunkParser {
+		
+		private final byte[] bytes;
+		private final Map<String, List<DictionaryEntry>> dictionary = new HashMap<>();
+		private final Map<String, Set<UDPosTag>> tagCache = new HashMap<>();
+		private final List<String> tokens = new ArrayList<>();
+		private final PhonemeInventory inventory = PhonemeInventory.shared();
+		
+		// The pronunciation being read, packed as it will be stored. Grown for the odd very long one
+		private short[] phonemeIds = new short[64];
+		private short[] syllableEnds = new short[64];
+		
+		ChunkParser(byte[] bytes) {
+			this.bytes = bytes;
+		}
+		
+		Map<String, List<DictionaryEntry>> parse() {
+			int pos = 0;
+			while (pos < bytes.length) {
+				int end = pos;
+				while (end < bytes.length && bytes[end] != '\n' && bytes[end] != '\r') {
+					end++;
+				}
+				parseLine(pos, end);
+				pos = end + 1;
+				if (end < bytes.length && bytes[end] == '\r' && pos < bytes.length && bytes[pos] == '\n') {
+					pos++;
+				}
+			}
+			return dictionary;
+		}
+		
+		private void parseLine(int from, int to) {
+			if (skipLine(from, to)) {
+				return;
+			}
+			DictionaryEntry entry = isWhitespace(bytes[from]) ? null : readEntry(from, to);
+			if (entry == SKIPPED) {
+				return;
+			}
+			if (entry == null) {
+				// Anything unusual goes through the original string based parser so the result stays identical
+				String line = new String(bytes, from, to - from, StandardCharsets.UTF_8);
+				entry = readLegacyEntry(line);
+				if (entry == null) {
+					return;
+				}
 			}
+			dictionary.computeIfAbsent(entry.headword(), k -> new ArrayList<>()).add(entry);
+		}
+		
+		/** Blank lines and a lone # are skipped */
+		private boolean skipLine(int from, int to) {
+			if (to - from == 1 && bytes[from] == '#') {
+				return true;
+			}
+			for (int i = from; i < to; i++) {
+				if (!isWhitespace(bytes[i])) {
+					return false;
+				}
+			}
+			return true;
+		}
+		
+		/**
+		 * Parse a well-formed line: headword(tags) # p h o . n e m e s # a l t e r . n a t e #
+		 * @return the entry, {@link #SKIPPED} if the headword is left out, or null if the line isn't well-formed
+		 */
+		private DictionaryEntry readEntry(int from, int to) {
+			tokens.clear();
+			int i = from;
+			while (i < to) {
+				while (i < to && isWhitespace(bytes[i])) {
+					i++;
+				}
+				int start = i;
+				while (i < to && !isWhitespace(bytes[i])) {
+					i++;
+				}
+				if (i > start) {
+					tokens.add(new String(bytes, start, i - start, StandardCharsets.UTF_8));
+				}
+			}
+			
+			// The headword token, an opening marker and a closing marker around at least one phoneme
+			if (tokens.size() < 4) {
+				return null;
+			}
+			String entry = tokens.get(0);
+			if (entry.indexOf(')') >= 0 || entry.indexOf('(') != entry.lastIndexOf('(')) {
+				entry = entry.replace(")", "");
+				if (entry.indexOf('(') != entry.lastIndexOf('(')) {
+					return null;
+				}
+			}
+			int open = entry.indexOf('(');
+			String headword = open < 0 ? entry : entry.substring(0, open);
+			String tagString = open < 0 ? null : entry.substring(open + 1);
+			if (tagString != null && tagString.isEmpty()) {
+				return null;
+			}
+			
+			List<Pronunciation> pronunciations = new ArrayList<>();
+			int phonemes = 0;
+			int syllables = 0;
+			int last = tokens.size() - 1; // The first and last markers are dropped
+			int syllableStart = 2;
+			for (int t = 2; t <= last; t++) {
+				String token = t < last ? tokens.get(t) : "#";
+				boolean endPronunciation = token.equals("#");
+				if (endPronunciation || token.equals(".")) {
+					if (t == syllableStart) {
+						return null; // Empty syllable or pronunciation
+					}
+					if (syllables == syllableEnds.length) {
+						syllableEnds = Arrays.copyOf(syllableEnds, syllables * 2);
+					}
+					syllableEnds[syllables++] = (short) phonemes;
+					syllableStart = t + 1;
+					if (endPronunciation) {
+						pronunciations.add(new Pronunciation(Arrays.copyOf(phonemeIds, phonemes), Arrays.copyOf(syllableEnds, syllables)));
+						phonemes = 0;
+						syllables = 0;
+					}
+				} else {
+					if (phonemes == phonemeIds.length) {
+						if (phonemes >= Short.MAX_VALUE) {
+							return null; // Too long to pack, the legacy parser skips it
+						}
+						phonemeIds = Arrays.copyOf(phonemeIds, Math.min(phonemes * 2, Short.MAX_VALUE));
+					}
+					phonemeIds[phonemes++] = inventory.id(token);
+				}
+			}
+			
+			if (processHeadword(headword) == null) {
+				return SKIPPED;
+			}
+			return new DictionaryEntry(headword, tags(tagString), pronunciations);
+		}
+		
+		private DictionaryEntry readLegacyEntry(String line) {
+			DictLine dictLine = readDictLine(line);
 			String headword = processHeadword(dictLine.headword());
 			if (headword == null) {
-				continue;
+				return null;
 			}
-			
-			Set<UDPosTag> tags = loadPosTags(dictLine.tagString);
-			DictionaryEntry dictionaryEntry = createDictionaryEntry(headword, dictLine.pronunciations(), tags);
-			dictionary.computeIfAbsent(headword, k -> new ArrayList<>()).add(dictionaryEntry);
+			Set<UDPosTag> tags = tags(dictLine.tagString());
+			try {
+				return createDictionaryEntry(headword, dictLine.pronunciations(), tags);
+			} catch (IllegalArgumentException e) {
+				// One absurdly long pronunciation shouldn't cost the whole dictionary
+				LOG.warn("Skipping dictionary entry for {}: {}", headword, e.getMessage());
+				return null;
+			}
+		}
+		
+		private Set<UDPosTag> tags(String tagString) {
+			if (tagString == null) {
+				return Collections.unmodifiableSet(loadPosTags(null));
+			}
+			return tagCache.computeIfAbsent(tagString, k -> Collections.unmodifiableSet(loadPosTags(k)));
 		}
-		return dictionary;
+		
+	}
+	
+	private static boolean isWhitespace(byte b) {
+		return b == ' ' || b == '\t' || b == '\n' || b == 0x0B || b == '\f' || b == '\r';
 	}
 	
 	private DictLine readDictLine(String line) {
-		if (skipLine(line)) {
-			return null;
-		}
 		String[] parts = line.split("\\s+");
 		String entry = parts[0];
 		String[] rest = new String[parts.length - 1];
@@ -94,10 +357,6 @@ public class ISLEDictionary implements Dictionary {
 		return new DictionaryEntry(headword, tags, pronunciation);
 	}
 	
-	private boolean skipLine(String line) {
-		return line.matches("^#|^\\s*$");
-	}
-	
 	private String processHeadword(String headword) {
 		if (headword.contains("_")) {
 			return null; // Skip headwords that contain underscores.  Underscores are used for word pairings.
@@ -121,18 +380,51 @@ public class ISLEDictionary implements Dictionary {
 	}
 	
 	public List<String> normalizeTags(List<String> ppos) {
-		return ppos.stream()
-			.map(pos -> pos.replaceAll("_\\d+\\.\\d+$", "")) // Remove ranking numbers: nnp_surname_0.001 -> nnp_surname
-			.filter(pos -> !pos.startsWith("+")) // Remove tags that start with +
-			.filter(pos -> !pos.startsWith("root:")) // Remove tags that start with root:
-			.filter(pos -> !pos.contains("_root")) // Remove tags that contain _root
-			.filter(pos -> !pos.startsWith("fw_misspelling:")) // Remove fw_misspelling:*
-			.filter(pos -> !pos.equals("punc")) // Remove punctuation tags
-			.filter(pos -> !pos.equals("of")) // Remove of tags
-			.map(pos -> pos.startsWith("nnp_") ? "nnp" : pos) // Normalize nnp_* to nnp
-			.map(pos -> pos.startsWith("nnps_") ? "nnps" : pos)// Normalize nnps_* to nnps
-			.map(pos -> pos.startsWith("_country") ? "nnp" : pos) // Normalize _country:* to nnp
-			.toList();
+		List<String> result = new ArrayList<>(ppos.size());
+		for (String pos : ppos) {
+			pos = removeRanking(pos); // Remove ranking numbers: nnp_surname_0.001 -> nnp_surname
+			if (pos.startsWith("+") // Remove tags that start with +
+				|| pos.startsWith("root:") // Remove tags that start with root:
+				|| pos.contains("_root") // Remove tags that contain _root
+				|| pos.startsWith("fw_misspelling:") // Remove fw_misspelling:*
+				|| pos.equals("punc") // Remove punctuation tags
+				|| pos.equals("of")) { // Remove of tags
+				continue;
+			}
+			if (pos.startsWith("nnp_") || pos.startsWith("_country")) {
+				pos = "nnp"; // Normalize nnp_* and _country:* to nnp
+			} else if (pos.startsWith("nnps_")) {
+				pos = "nnps"; // Normalize nnps_* to nnps
+			}
+			result.add(pos);
+		}
+		return List.copyOf(result);
+	}
+	
+	/** Strip a trailing _digits.digits ranking suffix */
+	private static String removeRanking(String pos) {
+		int underscore = pos.lastIndexOf('_');
+		if (underscore < 0) {
+			return pos;
+		}
+		int dot = pos.indexOf('.', underscore);
+		if (dot < 0 || !isDigits(pos, underscore + 1, dot) || !isDigits(pos, dot + 1, pos.length())) {
+			return pos;
+		}
+		return pos.substring(0, underscore);
+	}
+	
+	private static boolean isDigits(String str, int from, int to) {
+		if (from >= to) {
+			return false;
+		}
+		for (int i = from; i < to; i++) {
+			char c = str.charAt(i);
+			if (c < '0' || c > '9') {
+				return false;
+			}
+		}
+		return true;
 	}
 	
 }
@@ -0,0 +1,59 @@
+package com.ferreusveritas.shavianencoder.details.dictionary;
+
+import com.ferreusveritas.shavianencoder.core.dictionary.Dictionary;
+import com.ferreusveritas.shavianencoder.core.dictionary.DictionaryEntry;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/** Defers loading a dictionary until it is first used, so starting from a lexicon snapshot doesn't parse it up front */
+public class LazyDictionary implements Dictionary {
+	
+	@FunctionalInterface
+	public interface Loader {
+		Dictionary load() throws IOException;
+	}
+	
+	private final Loader loader;
+	private volatile Dictionary dictionary;
+	
+	public LazyDictionary(Loader loader) {
+		this.loader = loader;
+	}
+	
+	@Override
+	public List<String> words() {
+		return get().words();
+	}
+	
+	@Override
+	public List<DictionaryEntry> entries(String word) {
+		return get().entries(word);
+	}
+	
+	@Override
+	public Stream<Map.Entry<String, List<DictionaryEntry>>> stream() {
+		return get().stream();
+	}
+	
+	private Dictionary get() {
+		Dictionary result = dictionary;
+		if (result == null) {
+			synchronized (this) {
+				result = dictionary;
+				if (result == null) {
+					try {
+						dictionary = result = loader.load();
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				}
+			}
+		}
+		return result;
+	}
+	
+}
@@ -0,0 +1,55 @@
+package com.ferreusveritas.shavianencoder.details.encoder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Detects and splits camelCase and TitleCase words without regular expressions.
+ * Equivalent to matching {@code [A-Z]?[a-z]+[A-Z]+([a-zA-Z])+} and splitting on
+ * {@code (?<!(^|[A-Z]))(?=[A-Z])|(?<!^)(?=[A-Z][a-z])}, which is how this was first written.
+ */
+final class CamelCase {
+	
+	private CamelCase() {}
+	
+	/** An optional capital, a run of lowercase letters, then a capital followed by at least one more letter */
+	static boolean isCamelCase(String word) {
+		int length = word.length();
+		for (int i = 0; i < length; i++) {
+			if (!isLower(word.charAt(i)) && !isUpper(word.charAt(i))) {
+				return false;
+			}
+		}
+		int i = length > 0 && isUpper(word.charAt(0)) ? 1 : 0;
+		if (i >= length || !isLower(word.charAt(i))) {
+			return false;
+		}
+		while (i < length && isLower(word.charAt(i))) {
+			i++;
+		}
+		return length - i >= 2; // The run ended at a capital, which needs another letter after it
+	}
+	
+	/** Split before a capital that follows a lowercase letter, or that starts a capitalized word after an acronym */
+	static List<String> split(String word) {
+		List<String> parts = new ArrayList<>(4);
+		int start = 0;
+		for (int k = 1; k < word.length(); k++) {
+			if (isUpper(word.charAt(k)) && (!isUpper(word.charAt(k - 1)) || (k + 1 < word.length() && isLower(word.charAt(k + 1))))) {
+				parts.add(word.substring(start, k));
+				start = k;
+			}
+		}
+		parts.add(word.substring(start));
+		return parts;
+	}
+	
+	private static boolean isUpper(char c) {
+		return c >= 'A' && c <= 'Z';
+	}
+	
+	private static boolean isLower(char c) {
+		return c >= 'a' && c <= 'z';
+	}
+	
+}
@@ -0,0 +1,21 @@
+package com.ferreusveritas.shavianencoder.details.encoder;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/** Meters shared by the stages of the transliteration pipeline */
+final class PipelineMetrics {
+	
+	static final String STAGE_TIMER = "shavian.pipeline.stage";
+	
+	private PipelineMetrics() {}
+	
+	/** One timer per stage, all under the same name so they can be compared side by side */
+	static Timer stageTimer(String stage, MeterRegistry meterRegistry) {
+		return Timer.builder(STAGE_TIMER)
+			.tag("stage", stage)
+			.description("Time spent in each stage of transliteration, per sentence")
+			.register(meterRegistry);
+	}
+	
+}
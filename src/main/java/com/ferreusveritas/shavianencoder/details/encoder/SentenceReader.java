@@ -0,0 +1,157 @@
+package com.ferreusveritas.shavianencoder.details.encoder;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads text incrementally and hands it out one sentence at a time.
+ * Sentences end after the whitespace that follows terminal punctuation or a line break, so each sentence
+ * keeps its trailing whitespace and splits never fall inside a word, contraction or possessive.
+ * Concatenating every sentence gives back the original text exactly.
+ */
+public class SentenceReader {
+	
+	public static final int DEFAULT_MAX_LENGTH = 10_000;
+	
+	private static final String TERMINATORS = ".!?…";
+	private static final String CLOSERS = "\"')]}”’»";
+	
+	private final Reader reader;
+	private final int maxLength;
+	private final int maxWordLength;
+	private final char[] chunk = new char[4096];
+	private final StringBuilder buffer = new StringBuilder();
+	private int scanned = 0; // Start of the buffer already searched for a boundary
+	private int wordScanned = 0; // Same for the end of an overlong first word, 0 until the sentence is known to be one
+	private boolean eof = false;
+	
+	public SentenceReader(Reader reader) {
+		this(reader, DEFAULT_MAX_LENGTH);
+	}
+	
+	/**
+	 * @param maxLength sentences longer than this are cut at whitespace to bound memory. One with no whitespace that
+	 * far is a single long word and is cut where the word ends, unless it runs past 100 times maxLength, when it is
+	 * hard cut between code points.
+	 */
+	public SentenceReader(Reader reader, int maxLength) {
+		this.reader = reader;
+		this.maxLength = maxLength;
+		this.maxWordLength = (int) Math.min(100L * maxLength, Integer.MAX_VALUE - 8);
+	}
+	
+	/** Split text that is already in memory into sentences */
+	public static List<String> split(String text) {
+		SentenceReader reader = new SentenceReader(new StringReader(text));
+		List<String> sentences = new ArrayList<>();
+		try {
+			String sentence;
+			while ((sentence = reader.next()) != null) {
+				sentences.add(sentence);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e); // A StringReader never throws
+		}
+		return sentences;
+	}
+	
+	/** @return the next sentence, or null once the input is exhausted */
+	public String next() throws IOException {
+		while (true) {
+			int end = findBoundary();
+			if (end < 0 && buffer.length() >= maxLength) {
+				end = forcedBoundary();
+			}
+			if (end > 0) {
+				return take(end);
+			}
+			if (eof) {
+				return buffer.isEmpty() ? null : take(buffer.length());
+			}
+			int read = reader.read(chunk);
+			if (read < 0) {
+				eof = true;
+			} else {
+				buffer.append(chunk, 0, read);
+			}
+		}
+	}
+	
+	private String take(int end) {
+		String sentence = buffer.substring(0, end);
+		buffer.delete(0, end);
+		scanned = 0;
+		wordScanned = 0;
+		return sentence;
+	}
+	
+	/**
+	 * Find the end of the first complete sentence in the buffer, or -1 if more input is needed to know. Each call
+	 * carries on from where the last one stopped, so a long sentence arriving in many chunks is scanned only once.
+	 */
+	private int findBoundary() {
+		int length = Math.min(buffer.length(), maxLength);
+		int i = scanned;
+		while (i < length) {
+			if (!Character.isWhitespace(buffer.charAt(i))) {
+				i++;
+				continue;
+			}
+			int runStart = i;
+			boolean newline = false;
+			while (i < buffer.length() && Character.isWhitespace(buffer.charAt(i))) {
+				newline |= buffer.charAt(i) == '\n';
+				i++;
+			}
+			if (i == buffer.length()) {
+				scanned = runStart; // The whitespace run may continue in the next chunk
+				return -1;
+			}
+			if (runStart > 0 && (newline || (endsWithTerminator(runStart) && !Character.isLowerCase(buffer.charAt(i))))) {
+				return i;
+			}
+		}
+		scanned = Math.max(i, scanned);
+		return -1;
+	}
+	
+	private boolean endsWithTerminator(int end) {
+		int j = end - 1;
+		while (j > 0 && CLOSERS.indexOf(buffer.charAt(j)) >= 0) {
+			j--;
+		}
+		return TERMINATORS.indexOf(buffer.charAt(j)) >= 0;
+	}
+	
+	/**
+	 * Cut an overlong sentence after its last whitespace. If it has none it starts with a word longer than maxLength,
+	 * which is kept whole and cut after the whitespace that ends it, or -1 if more input is needed to find that.
+	 */
+	private int forcedBoundary() {
+		if (wordScanned == 0) {
+			for (int i = maxLength - 1; i > 0; i--) {
+				if (Character.isWhitespace(buffer.charAt(i))) {
+					return i + 1;
+				}
+			}
+			wordScanned = maxLength;
+		}
+		int i = wordScanned;
+		while (i < buffer.length() && !Character.isWhitespace(buffer.charAt(i))) {
+			i++;
+		}
+		wordScanned = i;
+		if (i < buffer.length()) {
+			return i + 1;
+		}
+		if (buffer.length() >= maxWordLength) {
+			return Character.isHighSurrogate(buffer.charAt(maxWordLength - 1)) ? maxWordLength - 1 : maxWordLength;
+		}
+		return -1;
+	}
+	
+}
@@ -1,65 +1,344 @@
 package com.ferreusveritas.shavianencoder.details.encoder;
 
-import com.ferreusveritas.shavianencoder.core.dictionary.Dictionary;
+import com.ferreusveritas.shavianencoder.core.lexicon.ContractionIndex;
 import com.ferreusveritas.shavianencoder.core.lexicon.Lexicon;
 import com.ferreusveritas.shavianencoder.core.encoder.Transliterator;
 import com.ferreusveritas.shavianencoder.core.encoder.SpeechTagger;
-import com.ferreusveritas.shavianencoder.core.lexicon.LexiconEntry;
 import com.ferreusveritas.shavianencoder.core.model.UDPosTag;
 import com.ferreusveritas.shavianencoder.core.model.SpeechEntity;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import com.ferreusveritas.shavianencoder.core.model.TokenExplanation;
+import com.ferreusveritas.shavianencoder.core.model.TokenSource;
+import com.ferreusveritas.shavianencoder.core.model.TransliteratedToken;
+import com.ferreusveritas.shavianencoder.details.cache.LruCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 
 import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
 
 public class ShavianTransliterator implements Transliterator {
 	
-	private static final Logger LOG = LoggerFactory.getLogger(ShavianTransliterator.class);
+	/** Longer sentences are unlikely to repeat and would crowd out the ones that do */
+	private static final int MAX_CACHED_SENTENCE_LENGTH = 1000;
+	
+	/** Runs of sentences at or below this many characters are transliterated as a single parallel task */
+	private static final int PARALLEL_CHUNK = 4096;
+	
+	/** Final sounds that take an extra vowel before a plural or possessive s */
+	private static final Set<String> SIBILANTS = Set.of("𐑕", "𐑟", "𐑖", "𐑠", "𐑗", "𐑡");
 	
-	private final Dictionary dictionary;
 	private final SpeechTagger speechTagger;
 	private final ShawMappingData shawMappingData;
 	private final Lexicon lexicon;
+	private final ContractionIndex contractions;
+	private final LruCache<SpeechEntity, TransliteratedToken> tokenCache;
+	private final LruCache<String, String> sentenceCache;
+	private final boolean fastTagging;
+	private final ForkJoinPool parallelPool;
+	private final int parallelThreshold;
+	
+	private final Timer contractionsTimer;
+	private final Timer lookupTimer;
+	private final Timer camelCaseTimer;
+	private final Counter tokenCounter;
+	private final Counter oovCounter;
+	private final Counter guessedCounter;
+	private final Counter untaggedCounter;
 	
 	public ShavianTransliterator(
-		Dictionary dictionary,
 		SpeechTagger speechTagger,
 		ShawMappingData shawMappingData,
-		Lexicon lexicon
+		Lexicon lexicon,
+		ContractionIndex contractions,
+		LruCache<SpeechEntity, TransliteratedToken> tokenCache,
+		LruCache<String, String> sentenceCache,
+		boolean fastTagging,
+		ForkJoinPool parallelPool,
+		int parallelThreshold,
+		MeterRegistry meterRegistry
 	) throws IOException {
-		this.dictionary = dictionary;
 		this.speechTagger = speechTagger;
 		this.shawMappingData = shawMappingData;
 		this.lexicon = lexicon;
+		this.contractions = contractions;
+		this.tokenCache = tokenCache;
+		this.sentenceCache = sentenceCache;
+		this.fastTagging = fastTagging;
+		this.parallelPool = parallelPool;
+		this.parallelThreshold = parallelThreshold;
+		
+		this.contractionsTimer = PipelineMetrics.stageTimer("contractions", meterRegistry);
+		this.lookupTimer = PipelineMetrics.stageTimer("lookup", meterRegistry); // includes any camelcase time
+		this.camelCaseTimer = PipelineMetrics.stageTimer("camelcase", meterRegistry);
+		this.tokenCounter = Counter.builder("shavian.tokens")
+			.description("Word, symbol and number tokens transliterated")
+			.register(meterRegistry);
+		this.oovCounter = Counter.builder("shavian.tokens.oov")
+			.description("Tokens not found in the lexicon")
+			.register(meterRegistry);
+		this.guessedCounter = Counter.builder("shavian.tokens.guessed")
+			.description("Out of vocabulary tokens given a guessed pronunciation")
+			.register(meterRegistry);
+		this.untaggedCounter = Counter.builder("shavian.sentences.untagged")
+			.description("Sentences transliterated without running the POS and lemma models")
+			.register(meterRegistry);
 	}
 	
 	@Override
 	public String transliterate(String english) {
-		List<SpeechEntity> entities = speechTagger.tagSentence(english);
+		return transliterate(english, null);
+	}
+	
+	/**
+	 * Inputs of at least parallelThreshold characters are split into runs of sentences that are transliterated on
+	 * the parallel pool and joined back in order. Sentences are independent, so the result is the same either way.
+	 */
+	@Override
+	public String transliterate(String english, List<TokenExplanation> explanations) {
+		List<String> sentences = SentenceReader.split(english);
+		if (parallelThreshold > 0 && english.length() >= parallelThreshold && sentences.size() > 1) {
+			int[] offsets = new int[sentences.size() + 1];
+			for (int i = 0; i < sentences.size(); i++) {
+				offsets[i + 1] = offsets[i] + sentences.get(i).length();
+			}
+			Chunk chunk = parallelPool.invoke(new SentencesTask(sentences, offsets, 0, sentences.size(), explanations != null));
+			if (explanations != null) {
+				explanations.addAll(chunk.explanations());
+			}
+			return chunk.out().toString();
+		}
+		StringBuilder out = new StringBuilder(english.length() * 2);
+		for (String sentence : sentences) {
+			transliterateSentence(sentence, out, explanations);
+		}
+		return out.toString();
+	}
+	
+	@Override
+	public List<String> sentences(String english) {
+		return SentenceReader.split(english);
+	}
+	
+	/** The transliteration of a run of sentences, with their explanations when asked for */
+	private record Chunk(
+		StringBuilder out,
+		List<TokenExplanation> explanations
+	) {}
+	
+	private class SentencesTask extends RecursiveTask<Chunk> {
+		
+		private final List<String> sentences;
+		private final int[] offsets; // Character offset of each sentence in the input
+		private final int from;
+		private final int to;
+		private final boolean explain;
+		
+		SentencesTask(List<String> sentences, int[] offsets, int from, int to, boolean explain) {
+			this.sentences = sentences;
+			this.offsets = offsets;
+			this.from = from;
+			this.to = to;
+			this.explain = explain;
+		}
+		
+		@Override
+		protected Chunk compute() {
+			if (to - from == 1 || offsets[to] - offsets[from] <= PARALLEL_CHUNK) {
+				Chunk chunk = new Chunk(new StringBuilder((offsets[to] - offsets[from]) * 2), explain ? new ArrayList<>() : null);
+				for (int i = from; i < to; i++) {
+					transliterateSentence(sentences.get(i), chunk.out(), chunk.explanations());
+				}
+				return chunk;
+			}
+			int split = (from + to) >>> 1;
+			SentencesTask left = new SentencesTask(sentences, offsets, from, split, explain);
+			left.fork();
+			Chunk right = new SentencesTask(sentences, offsets, split, to, explain).compute();
+			Chunk merged = left.join();
+			merged.out().append(right.out());
+			if (explain) {
+				merged.explanations().addAll(right.explanations());
+			}
+			return merged;
+		}
+		
+	}
+	
+	/** Transliterate one sentence at a time so memory is bounded by sentence size rather than document size */
+	@Override
+	public void transliterate(Reader english, Writer out) throws IOException {
+		SentenceReader sentences = new SentenceReader(english);
+		StringBuilder shaw = new StringBuilder();
+		String sentence;
+		while ((sentence = sentences.next()) != null) {
+			shaw.setLength(0);
+			transliterateSentence(sentence, shaw, null);
+			out.append(shaw);
+			out.flush();
+		}
+	}
+	
+	/**
+	 * Repeated sentences (footers, menu text, templated messages) are served from the sentence cache without
+	 * running the tagger. Surrounding whitespace passes through unchanged, so it is left out of the cache key.
+	 * Explaining needs every token, so it always runs the tagger.
+	 */
+	private void transliterateSentence(String sentence, StringBuilder out, List<TokenExplanation> explanations) {
+		int start = 0;
+		int end = sentence.length();
+		while (start < end && Character.isWhitespace(sentence.charAt(start))) {
+			start++;
+		}
+		while (end > start && Character.isWhitespace(sentence.charAt(end - 1))) {
+			end--;
+		}
+		out.append(sentence, 0, start);
+		if (start < end) {
+			String text = sentence.substring(start, end);
+			out.append(explanations == null && text.length() <= MAX_CACHED_SENTENCE_LENGTH
+				? sentenceCache.computeIfAbsent(text, this::tagAndTransliterate)
+				: tagAndTransliterate(text, explanations));
+		}
+		out.append(sentence, end, sentence.length());
+	}
+	
+	private String tagAndTransliterate(String english) {
+		return tagAndTransliterate(english, null);
+	}
+	
+	private String tagAndTransliterate(String english, List<TokenExplanation> explanations) {
+		List<SpeechEntity> entities = fastTagging
+			? speechTagger.tagSentence(english, this::presumeTags)
+			: speechTagger.tagSentence(english);
+		
+		// Stages are timed once per sentence rather than per token to keep the overhead negligible
+		long start = System.nanoTime();
 		entities = handleContractions(entities);
+		long merged = System.nanoTime();
+		contractionsTimer.record(merged - start, TimeUnit.NANOSECONDS);
+		
 		StringBuilder out = new StringBuilder();
-		int i = 0;
+		int tokens = 0;
+		int oov = 0;
+		int guessed = 0;
 		for(SpeechEntity entity : entities) {
-			String shaw = transliterateEntity(entity, i, entities);
-			LOG.info(entity.normal() + " -> " + shaw);
-			out.append(shaw);
-			i++;
+			if(entity.pos().isWhitespace()) {
+				out.append(entity.normal());
+				continue;
+			}
+			// Natural text repeats the same few tokens constantly, so memoize the whole per-token decision
+			TransliteratedToken token = tokenCache.computeIfAbsent(entity, this::transliterateToken);
+			if(explanations != null) {
+				explanations.add(new TokenExplanation(entity.normal(), entity.pos(), entity.lemma(), token.source(), token.shavian()));
+			}
+			out.append(token.shavian());
+			tokens++;
+			oov += token.source().isOutOfVocabulary() ? 1 : 0;
+			guessed += token.source().isGuessed() ? 1 : 0;
 		}
+		lookupTimer.record(System.nanoTime() - merged, TimeUnit.NANOSECONDS);
+		tokenCounter.increment(tokens);
+		oovCounter.increment(oov);
+		guessedCounter.increment(guessed);
 		return fixSpacing(out.toString());
 	}
 	
+	/**
+	 * Tags for a sentence whose transliteration is unlikely to depend on the models, or null if it might. That is
+	 * when every word is an abbreviation, unambiguous in the lexicon or part of a contraction, and no word is
+	 * capitalized unless it is the first and a closed class word, since the tagger could take any other capitalized
+	 * word, the first included, for a proper noun and give it a naming dot.
+	 * <p>
+	 * This is lossy. The POS model has no tag dictionary, so from context alone it can still tag a lowercase word
+	 * proper noun, which would give it a naming dot, or number or symbol, which would leave it in Latin letters. The
+	 * fast path can't tell without running the model. Tokens without letters are passed through unless the lexicon
+	 * has them; those go to the models, since the spelling then depends on whether they are tagged as symbols.
+	 * Words that aren't looked up are given the tag the tagger would most likely have given them.
+	 */
+	private UDPosTag[] presumeTags(String[] tokens) {
+		UDPosTag[] tags = new UDPosTag[tokens.length];
+		boolean firstWord = true;
+		for (int i = 0; i < tokens.length; i++) {
+			String token = tokens[i];
+			if (!hasLetter(token)) {
+				if (lexicon.hasWord(token)) {
+					return null;
+				}
+				tags[i] = Character.isDigit(token.charAt(0)) ? UDPosTag.NUM
+					: isPunctuation(token.charAt(0)) ? UDPosTag.PUNCT
+					: UDPosTag.SYM;
+				continue;
+			}
+			if (hasUpperCase(token, 0) && (!firstWord || hasUpperCase(token, 1) || !lexicon.isClosedClass(token))) {
+				return null;
+			}
+			firstWord = false;
+			boolean contraction = isContraction(tokens, i, i + 2) || isContraction(tokens, i - 2, i) || isPossessiveEnding(tokens, i);
+			if (!contraction && !lexicon.isUnambiguous(token) && !shawMappingData.getAbbreviationsMap().containsKey(token)) {
+				return null;
+			}
+			tags[i] = UDPosTag.X;
+		}
+		untaggedCounter.increment();
+		return tags;
+	}
+	
+	/** Whether handleContractions will merge head, an apostrophe and tail into a known contraction */
+	private boolean isContraction(String[] tokens, int head, int tail) {
+		return head >= 0 && tail < tokens.length
+			&& isApostrophe(tokens[head + 1]) && hasLetter(tokens[head]) && hasLetter(tokens[tail])
+			&& contractions.contains(tokens[head], tokens[tail]);
+	}
+	
+	/** The s of a possessive, which is merged into the word before it */
+	private boolean isPossessiveEnding(String[] tokens, int index) {
+		return index >= 2 && tokens[index].equals("s") && isApostrophe(tokens[index - 1]) && hasLetter(tokens[index - 2]);
+	}
+	
+	private static boolean hasLetter(String token) {
+		for (int i = 0; i < token.length(); i++) {
+			if (Character.isLetter(token.charAt(i))) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	private static boolean hasUpperCase(String token, int from) {
+		for (int i = from; i < token.length(); i++) {
+			if (Character.isUpperCase(token.charAt(i))) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	private static boolean isPunctuation(char c) {
+		return switch (Character.getType(c)) {
+			case Character.CONNECTOR_PUNCTUATION, Character.DASH_PUNCTUATION, Character.START_PUNCTUATION,
+				Character.END_PUNCTUATION, Character.INITIAL_QUOTE_PUNCTUATION, Character.FINAL_QUOTE_PUNCTUATION,
+				Character.OTHER_PUNCTUATION -> true;
+			default -> false;
+		};
+	}
+	
 	private String fixSpacing(String text) {
 		return text
-			.replaceAll("␍", "\n") // Match ␍ and replace with newline
-			.replaceAll("␉", "\t"); // Match ␉ and replace with tab
+			.replace('␍', '\n') // Match ␍ and replace with newline
+			.replace('␉', '\t'); // Match ␉ and replace with tab
 	}
 	
 	private String getFinalSSound(String base) {
-		List<String> finals = List.of("𐑕", "𐑟", "𐑖", "𐑠", "𐑗", "𐑡");
 		String last = base.substring(base.length() - 2); // shaw characters are 2-wide
-		if(finals.contains(last)) {
+		if(SIBILANTS.contains(last)) {
 			return "𐑦𐑟";
 		}
 		if(shawMappingData.getUnvoiced().contains(last)) {
@@ -68,52 +347,61 @@ public class ShavianTransliterator implements Transliterator {
 		return "𐑟";
 	}
 	
-	private String guessPronunciation(SpeechEntity entity) {
-	
-		if(lexicon.hasWord(entity.lemma())) {
-			String base = transliterateEntity(new SpeechEntity(entity.lemma(), entity.pos(), entity.lemma()));
+	private TransliteratedToken guessPronunciation(String normal, UDPosTag pos, String lemma) {
+		
+		if(lexicon.hasWord(lemma)) {
+			String base = transliterateToken(lemma, pos, lemma).shavian();
 			
 			// build -ing words from lemma
-			if (entity.pos().isVerb() && entity.normal().endsWith("ing")) {
-				return base + "𐑦𐑙";
+			if (pos.isVerb() && normal.endsWith("ing")) {
+				return new TransliteratedToken(base + "𐑦𐑙", TokenSource.LEMMA);
 			}
 			
 			// build -ed words from lemma
-			if (entity.pos().isVerb() && entity.normal().endsWith("ed")) {
+			if (pos.isVerb() && normal.endsWith("ed")) {
 				String last = base.substring(base.length() - 2); // shaw characters are 2-wide
 				String ending = (last.equals("𐑛") || last.equals("𐑑")) ? "𐑦𐑛"
 					: shawMappingData.getNasals().contains(last) ? "𐑛"
 					: shawMappingData.getConsonants().contains(last) ? "𐑑"
 					: "𐑛";
-				return base + ending;
+				return new TransliteratedToken(base + ending, TokenSource.LEMMA);
 			}
 			
 			// build -(e)s words from lemma
-			if ((entity.pos().isNoun() && !entity.pos().isProperNoun() && entity.normal().endsWith("s") && !entity.lemma().endsWith("s"))) {
+			if ((pos.isNoun() && !pos.isProperNoun() && normal.endsWith("s") && !lemma.endsWith("s"))) {
 				String ending = getFinalSSound(base);
-				return base + ending;
+				return new TransliteratedToken(base + ending, TokenSource.LEMMA);
 			}
-		
-			return base;
+			
+			return new TransliteratedToken(base, TokenSource.LEMMA);
 		}
 		
 		// guess CamelCased words based on individual pieces
-		if(entity.normal().matches("[A-Z]?[a-z]+[A-Z]+([a-zA-Z])+")) { // detect camelCase or TitleCase
-			boolean startsWithCapital = Character.isUpperCase(entity.normal().charAt(0));
-			String[] normals = entity.normal().split("(?<!(^|[A-Z]))(?=[A-Z])|(?<!^)(?=[A-Z][a-z])");
-			for (int i = 0; i < normals.length; i++) {
-				SpeechEntity tag = speechTagger.tagSentence(normals[i].toLowerCase()).get(0);
-				normals[i] = transliterateEntity(tag);
+		if(CamelCase.isCamelCase(normal)) { // detect camelCase or TitleCase
+			long start = System.nanoTime();
+			boolean startsWithCapital = Character.isUpperCase(normal.charAt(0));
+			StringBuilder shaw = new StringBuilder();
+			if(startsWithCapital) {
+				shaw.append(shawMappingData.getNamingDot());
+			}
+			List<String> parts = CamelCase.split(normal);
+			for (int i = 0; i < parts.size(); i++) {
+				SpeechEntity tag = speechTagger.tagSentence(parts.get(i).toLowerCase()).get(0);
+				if(i > 0) {
+					shaw.append(shawMappingData.getNamingDot());
+				}
+				shaw.append(transliterateToken(tag.normal(), tag.pos(), tag.lemma()).shavian());
 			}
-			return (startsWithCapital ? shawMappingData.getNamingDot() : "") + String.join(shawMappingData.getNamingDot(), normals);
+			camelCaseTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+			return new TransliteratedToken(shaw.toString(), TokenSource.CAMEL_CASE);
 		}
 		
-		return entity.normal();
+		return new TransliteratedToken(normal, TokenSource.UNKNOWN);
 	}
 	
-	private String getPossessive(SpeechEntity entity) {
-		boolean endsWithS = entity.normal().endsWith("s");
-		final String prevShaw = transliterateEntity(entity);
+	private String getPossessive(String normal, UDPosTag pos, String lemma) {
+		boolean endsWithS = normal.endsWith("s");
+		final String prevShaw = transliterateToken(normal, pos, lemma).shavian();
 		String finalSSound = getFinalSSound(prevShaw);
 		if(endsWithS) {
 			return prevShaw + finalSSound + "'";
@@ -121,75 +409,76 @@ public class ShavianTransliterator implements Transliterator {
 		return prevShaw + "'" + finalSSound;
 	}
 	
-	private boolean isName(SpeechEntity entity) {
-		List<LexiconEntry> variants = lexicon.getEntries(entity.normal());
+	private boolean isName(String normal, UDPosTag pos, Lexicon.Entries variants) {
 		if(variants.isEmpty()) {
 			return false;
 		}
-		if(!entity.pos().isNoun()) {
+		if(!pos.isNoun()) {
 			return false;
 		}
-		boolean foundProper = variants.stream().anyMatch(entry -> entry.testTags(UDPosTag::isProperNoun));
-		boolean foundOther = variants.stream().anyMatch(entry ->
-			entry.testTags(UDPosTag::isNoun) ||
-			entry.testTags(UDPosTag::isAdjective) ||
-			entry.testTags(UDPosTag::isVerb)
-		);
-		return foundProper && (!foundOther || Character.isUpperCase(entity.normal().charAt(0)));
+		boolean foundProper = false;
+		boolean foundOther = false;
+		for(int i = 0; i < variants.size(); i++) {
+			foundProper |= variants.hasPos(i, UDPosTag.PROPN);
+			foundOther |= variants.hasPos(i, UDPosTag.NOUN) || variants.hasPos(i, UDPosTag.ADJ) || variants.hasPos(i, UDPosTag.VERB);
+		}
+		return foundProper && (!foundOther || Character.isUpperCase(normal.charAt(0)));
 	}
 	
-	private String transliterateEntity(SpeechEntity entity) {
-		return transliterateEntity(entity, 0, List.of(entity));
+	/** Transliterate a single tagged token, without the token cache */
+	TransliteratedToken transliterateToken(SpeechEntity entity) {
+		return transliterateToken(entity.normal(), entity.pos(), entity.lemma());
 	}
 	
-	private String transliterateEntity(SpeechEntity entity, int i, List<SpeechEntity> entities) {
-		List<LexiconEntry> variants = lexicon.getEntries(entity.normal());
-		
-		if(entity.pos().isWhitespace()) {
-			return entity.normal();
+	private TransliteratedToken transliterateToken(String normal, UDPosTag pos, String lemma) {
+		if(pos.isWhitespace()) {
+			return new TransliteratedToken(normal, TokenSource.WHITESPACE);
 		}
 		
-		if(shawMappingData.getAbbreviationsMap().containsKey(entity.normal())) {
-			return shawMappingData.getAbbreviationsMap().get(entity.normal());
+		String abbreviation = shawMappingData.getAbbreviationsMap().get(normal);
+		if(abbreviation != null) {
+			return new TransliteratedToken(abbreviation, TokenSource.ABBREVIATION);
 		}
 		
-		if(entity.pos().isSymbol()) {
-			return entity.normal();
+		if(pos.isSymbol()) {
+			return new TransliteratedToken(normal, TokenSource.SYMBOL);
 		}
 		
 		// Check if tag is num and string doesn't start with alphabetic character
-		if(entity.pos().isNumber() && !Character.isAlphabetic(entity.normal().charAt(0))) {
-			return entity.normal();
+		if(pos.isNumber() && !Character.isAlphabetic(normal.charAt(0))) {
+			return new TransliteratedToken(normal, TokenSource.NUMBER);
 		}
 		
-		if(entity.normal().endsWith("'s")) {
-			entity = new SpeechEntity(entity.normal().substring(0, entity.normal().length() - 2), entity.pos(), entity.lemma());
-			return getPossessive(entity);
+		// The lemmatizer leaves unknown possessives as they are, and looking the whole lemma up again would come
+		// straight back here, so the lemma loses its ending along with the word
+		if(normal.endsWith("'s")) {
+			String stem = lemma.endsWith("'s") ? lemma.substring(0, lemma.length() - 2) : lemma;
+			return new TransliteratedToken(getPossessive(normal.substring(0, normal.length() - 2), pos, stem), TokenSource.POSSESSIVE);
 		}
 		
-		if(entity.normal().endsWith("s'")) {
-			entity = new SpeechEntity(entity.normal().substring(0, entity.normal().length() - 1), entity.pos(), entity.lemma());
-			return getPossessive(entity);
+		if(normal.endsWith("s'")) {
+			String stem = lemma.endsWith("s'") ? lemma.substring(0, lemma.length() - 1) : lemma;
+			return new TransliteratedToken(getPossessive(normal.substring(0, normal.length() - 1), pos, stem), TokenSource.POSSESSIVE);
 		}
 		
+		Lexicon.Entries variants = lexicon.getEntries(normal);
 		if(variants.isEmpty()) {
-			return guessPronunciation(entity);
+			return guessPronunciation(normal, pos, lemma);
 		}
 		
-		UDPosTag pos = entity.pos();
-		String shaw = variants.get(0).shavian();
-		
-		if (variants.size() > 1) {
-			shaw = variants.stream()
-				.filter(entry -> entry.pos().contains(pos))
-				.findFirst().map(LexiconEntry::shavian)
-				.orElse(shaw);
+		int chosen = 0;
+		for(int i = 1; i < variants.size(); i++) {
+			if(variants.hasPos(i, pos)) {
+				chosen = i;
+				break;
+			}
 		}
+		String shaw = variants.shavian(chosen);
 		
 		// Sometimes tagger doesn't tag names with NNP, but if the only ISLE entry is
 		// NNP we can be pretty sure it should be a proper noun
-		boolean isProper = pos.isProperNoun() || isName(entity);
-		return isProper ? shawMappingData.getNamingDot() + shaw : shaw;
+		boolean isProper = pos.isProperNoun() || isName(normal, pos, variants);
+		return new TransliteratedToken(isProper ? shawMappingData.getNamingDot() + shaw : shaw, TokenSource.LEXICON);
 	}
 	
 	private boolean isApostrophe(String str) {
@@ -202,7 +491,7 @@ public class ShavianTransliterator implements Transliterator {
 			SpeechEntity entity = entities.get(i);
 			if(i + 2 < entities.size() && isApostrophe(entities.get(i + 1).normal())) {
 				String combined = entities.get(i).normal() + "'" + entities.get(i + 2).normal();
-				boolean isContraction = !dictionary.entries(combined.toLowerCase()).isEmpty();
+				boolean isContraction = contractions.contains(entities.get(i).normal(), entities.get(i + 2).normal());
 				if(isContraction) {
 					result.add(new SpeechEntity(combined, UDPosTag.CONT, combined));
 					i += 2;
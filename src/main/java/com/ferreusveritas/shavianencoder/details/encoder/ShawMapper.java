@@ -1,57 +1,163 @@
 package com.ferreusveritas.shavianencoder.details.encoder;
 
+import com.ferreusveritas.shavianencoder.core.dictionary.PhonemeInventory;
 import com.ferreusveritas.shavianencoder.core.dictionary.Pronunciation;
-import com.ferreusveritas.shavianencoder.core.dictionary.Syllable;
 import com.ferreusveritas.shavianencoder.core.encoder.Mapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import java.util.List;
+import java.util.Arrays;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ShawMapper implements Mapper {
 	
-	private record ConvertPair(String pattern, String shaw) {}
+	private static final Logger LOG = LoggerFactory.getLogger(ShawMapper.class);
 	
-	private final List<ConvertPair> pairs;
+	private static final String IPA_IGNORE = "ˈˌ˺";
 	
-	public ShawMapper(Map<String, String> map) {
-		this.pairs = getOrderedMapping(map);
+	/** Prefix trie node over IPA code points. Child keys are kept sorted for binary search */
+	private static final class Node {
+		
+		private int[] keys = new int[0];
+		private Node[] children = new Node[0];
+		private String shaw; // Shavian for the pattern ending at this node, null if no pattern ends here
+		
+		Node child(int codePoint) {
+			int i = Arrays.binarySearch(keys, codePoint);
+			return i >= 0 ? children[i] : null;
+		}
+		
+		Node addChild(int codePoint) {
+			int i = Arrays.binarySearch(keys, codePoint);
+			if (i >= 0) {
+				return children[i];
+			}
+			i = -i - 1;
+			Node node = new Node();
+			keys = insert(keys, i, codePoint);
+			children = insert(children, i, node);
+			return node;
+		}
+		
+		private static int[] insert(int[] array, int index, int value) {
+			int[] result = Arrays.copyOf(array, array.length + 1);
+			System.arraycopy(array, index, result, index + 1, array.length - index);
+			result[index] = value;
+			return result;
+		}
+		
+		private static Node[] insert(Node[] array, int index, Node value) {
+			Node[] result = Arrays.copyOf(array, array.length + 1);
+			System.arraycopy(array, index, result, index + 1, array.length - index);
+			result[index] = value;
+			return result;
+		}
+		
+	}
+	
+	private final Node root;
+	private final MeterRegistry meterRegistry;
+	private final Map<Integer, Counter> unmapped = new ConcurrentHashMap<>();
+	private volatile int[][] phonemeCodePoints = new int[0][];
+	
+	/** @param meterRegistry where IPA passed through without a mapping is counted, as shavian.mapper.unmapped{ipa} */
+	public ShawMapper(Map<String, String> map, MeterRegistry meterRegistry) {
+		this.root = compile(map);
+		this.meterRegistry = meterRegistry;
 	}
 	
-	private List<ConvertPair> getOrderedMapping(Map<String, String> mappings) {
-		return mappings.keySet().stream()
-			.sorted((a, b) -> Integer.compare(b.length(), a.length()))
-			.map(pattern -> new ConvertPair(pattern, mappings.get(pattern)))
-			.toList();
+	private Node compile(Map<String, String> mappings) {
+		Node root = new Node();
+		mappings.forEach((pattern, shaw) -> {
+			Node node = root;
+			for (int i = 0; i < pattern.length(); i += Character.charCount(pattern.codePointAt(i))) {
+				node = node.addChild(pattern.codePointAt(i));
+			}
+			node.shaw = shaw;
+		});
+		return root;
 	}
 	
 	@Override
 	public String map(Pronunciation pronunciation) {
-		List<Syllable> syllables = pronunciation.syllables();
-		return syllables.stream()
-			.map(this::map)
-			.reduce("", (a, b) -> a + b);
+		StringBuilder converted = new StringBuilder();
+		for (int s = 0; s < pronunciation.syllableCount(); s++) {
+			map(codePoints(pronunciation, pronunciation.syllableStart(s), pronunciation.syllableEnd(s)), converted);
+		}
+		return converted.toString();
 	}
 	
-	private String map(Syllable syllable) {
-		String ipaIgnore = "[ˈˌ˺]";
-		String syl = String
-			.join("", syllable.phonemes()) // join all phonemes in the syllable
-			.replaceAll(ipaIgnore, ""); // remove all ignored characters
-		
-		StringBuilder converted = new StringBuilder();
-		String remaining = syl;
-		
-		for(int i = 0; i < pairs.size() && !remaining.isEmpty(); i++) {
-			ConvertPair pair = pairs.get(i);
-			String pattern = pair.pattern();
-			if(remaining.startsWith(pattern)) {
-				converted.append(pair.shaw());
-				remaining = remaining.substring(pattern.length());
-				i = 0;
+	/** Single left to right pass taking the longest pattern at each position */
+	private void map(int[] ipa, StringBuilder converted) {
+		int i = 0;
+		while (i < ipa.length) {
+			String match = null;
+			int matchEnd = i;
+			Node node = root;
+			for (int j = i; j < ipa.length && (node = node.child(ipa[j])) != null; j++) {
+				if (node.shaw != null) {
+					match = node.shaw;
+					matchEnd = j + 1;
+				}
+			}
+			if (match != null) {
+				converted.append(match);
+				i = matchEnd;
+			} else {
+				converted.appendCodePoint(ipa[i]); // just pass thru anything we couldn't convert
+				reportUnmapped(ipa[i]);
+				i++;
 			}
 		}
-		converted.append(remaining); // just pass thru anything we couldn't convert
-		return converted.toString();
+	}
+	
+	/** All code points of a run of phonemes, minus the ignored stress and release marks */
+	private int[] codePoints(Pronunciation pronunciation, int from, int to) {
+		int length = 0;
+		for (int i = from; i < to; i++) {
+			length += codePoints(pronunciation.phonemeId(i)).length;
+		}
+		int[] result = new int[length];
+		int count = 0;
+		for (int i = from; i < to; i++) {
+			int[] phoneme = codePoints(pronunciation.phonemeId(i));
+			System.arraycopy(phoneme, 0, result, count, phoneme.length);
+			count += phoneme.length;
+		}
+		return result;
+	}
+	
+	/** The code points of a phoneme, worked out once per phoneme ID */
+	private int[] codePoints(int phonemeId) {
+		int[][] table = phonemeCodePoints;
+		int[] codePoints = phonemeId < table.length ? table[phonemeId] : null;
+		return codePoints != null ? codePoints : addCodePoints(phonemeId);
+	}
+	
+	/** Copy on write, so readers never see a partly filled table */
+	private synchronized int[] addCodePoints(int phonemeId) {
+		int[][] table = Arrays.copyOf(phonemeCodePoints, Math.max(phonemeCodePoints.length, phonemeId + 1));
+		if (table[phonemeId] == null) {
+			table[phonemeId] = PhonemeInventory.shared().phoneme(phonemeId).codePoints()
+				.filter(codePoint -> IPA_IGNORE.indexOf(codePoint) < 0)
+				.toArray();
+			phonemeCodePoints = table;
+		}
+		return table[phonemeId];
+	}
+	
+	private void reportUnmapped(int codePoint) {
+		unmapped.computeIfAbsent(codePoint, k -> {
+			String ipa = Character.toString(codePoint);
+			LOG.warn("No Shavian mapping for IPA '{}' (U+{}), passing it through", ipa, Integer.toHexString(codePoint).toUpperCase());
+			return Counter.builder("shavian.mapper.unmapped")
+				.tag("ipa", ipa)
+				.description("IPA symbols with no Shavian mapping, passed through as they are")
+				.register(meterRegistry);
+		}).increment();
 	}
 	
 }
@@ -5,6 +5,9 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -123,7 +126,12 @@ public class ShawMappingData {
 	
 	
 	public ShawMappingData() {
-		this.ipa2shaw = Stream.of(consonantsMap, vowelsMap, rColoredMap)
+		this(Map.of());
+	}
+	
+	/** @param ipaOverrides IPA to Shavian mappings that replace or add to the built in tables */
+	public ShawMappingData(Map<String, String> ipaOverrides) {
+		this.ipa2shaw = Stream.of(consonantsMap, vowelsMap, rColoredMap, ipaOverrides)
 			.flatMap(m -> m.entrySet().stream())
 			.collect(HashMap::new, (m, e) -> m.put(e.getKey(), e.getValue()), HashMap::putAll);
 		this.consonants = consonantsMap.values().stream().toList();
@@ -134,6 +142,11 @@ public class ShawMappingData {
 		this.unvoiced = List.of("𐑐", "𐑑", "𐑒", "𐑓", "𐑔", "𐑕", "𐑖", "𐑗");
 	}
 	
+	/** Read a JSON object of IPA to Shavian overrides. Unlike the built in tables a bad file is an error */
+	public static Map<String, String> readOverrides(Path file) throws IOException {
+		return MAPPER.readValue(Files.readString(file), new TypeReference<>(){});
+	}
+	
 	public Map<String, String> getAbbreviationsMap() {
 		return abbreviationsMap;
 	}
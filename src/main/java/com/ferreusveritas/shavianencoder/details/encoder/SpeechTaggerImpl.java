@@ -3,6 +3,9 @@ package com.ferreusveritas.shavianencoder.details.encoder;
 import com.ferreusveritas.shavianencoder.core.encoder.SpeechTagger;
 import com.ferreusveritas.shavianencoder.core.model.SpeechEntity;
 import com.ferreusveritas.shavianencoder.core.model.UDPosTag;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import opennlp.tools.lemmatizer.Lemmatizer;
 import opennlp.tools.lemmatizer.LemmatizerME;
 import opennlp.tools.lemmatizer.LemmatizerModel;
@@ -14,38 +17,97 @@ import opennlp.tools.tokenize.Tokenizer;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 public class SpeechTaggerImpl implements SpeechTagger {
 	
+	/** A POS tagger and lemmatizer pair. The OpenNLP decoders are not thread-safe so each worker borrows its own. */
+	private record Engine(
+		POSTaggerME posTagger,
+		Lemmatizer lemmatizer
+	) {}
+	
 	private final Tokenizer tokenizer;
-	private final POSTaggerME posTagger;
-	private final Lemmatizer lemmatizer;
+	private final BlockingQueue<Engine> engines;
+	private final Timer poolWait;
+	private final Timer tokenizeTimer;
+	private final Timer posTimer;
+	private final Timer lemmatizeTimer;
 	
-	public SpeechTaggerImpl() {
+	public SpeechTaggerImpl(int poolSize, MeterRegistry meterRegistry) {
 		this.tokenizer = SimpleTokenizer.INSTANCE;
 		SimpleTokenizer.INSTANCE.setKeepNewLines(true);
 		
+		POSModel posModel;
 		try (InputStream modelIn = getClass().getResourceAsStream("/models/opennlp-en-ud-ewt-pos-1.2-2.5.0.bin")) {
-			POSModel posModel = new POSModel(modelIn);
-			this.posTagger = new POSTaggerME(posModel);
+			posModel = new POSModel(modelIn);
 		} catch (Exception e) {
 			throw new RuntimeException("Failed to load POS model", e);
 		}
 		
+		LemmatizerModel lemmatizerModel;
 		try (InputStream modelIn = getClass().getResourceAsStream("/models/opennlp-en-ud-ewt-lemmas-1.2-2.5.0.bin")) {
-			LemmatizerModel model = new LemmatizerModel(modelIn);
-			this.lemmatizer = new LemmatizerME(model);
+			lemmatizerModel = new LemmatizerModel(modelIn);
 		} catch (Exception e) {
 			throw new RuntimeException("Failed to load lemmatizer model", e);
 		}
 		
+		// The models are immutable and shared, only the decoders are per worker
+		this.engines = new ArrayBlockingQueue<>(poolSize);
+		for (int i = 0; i < poolSize; i++) {
+			engines.add(new Engine(new POSTaggerME(posModel), new LemmatizerME(lemmatizerModel)));
+		}
+		
+		this.poolWait = Timer.builder("shavian.tagger.pool.wait")
+			.description("Time spent waiting for a free tagger engine")
+			.register(meterRegistry);
+		this.tokenizeTimer = PipelineMetrics.stageTimer("tokenize", meterRegistry);
+		this.posTimer = PipelineMetrics.stageTimer("pos", meterRegistry);
+		this.lemmatizeTimer = PipelineMetrics.stageTimer("lemmatize", meterRegistry);
+		Gauge.builder("shavian.tagger.pool.size", engines, q -> poolSize)
+			.description("Number of tagger engines in the pool")
+			.register(meterRegistry);
+		Gauge.builder("shavian.tagger.pool.available", engines, BlockingQueue::size)
+			.description("Number of idle tagger engines in the pool")
+			.register(meterRegistry);
 	}
 	
 	@Override
 	public List<SpeechEntity> tagSentence(String message) {
+		return tagSentence(message, tokens -> null);
+	}
+	
+	@Override
+	public List<SpeechEntity> tagSentence(String message, Function<String[], UDPosTag[]> presume) {
+		long start = System.nanoTime();
 		String[] tokens = tokenizer.tokenize(message);
-		String[] posTags = posTagger.tag(tokens);
-		String[] lemmas = lemmatizer.lemmatize(tokens, posTags);
+		tokenizeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		UDPosTag[] presumed = presume.apply(tokens);
+		if (presumed != null) {
+			List<SpeechEntity> result = new ArrayList<>(tokens.length);
+			for (int i = 0; i < tokens.length; i++) {
+				result.add(new SpeechEntity(tokens[i], presumed[i], tokens[i]));
+			}
+			return expandWithWhitespace(result, message);
+		}
+		String[] posTags;
+		String[] lemmas;
+		Engine engine = acquire();
+		try {
+			long tagged = System.nanoTime();
+			posTags = engine.posTagger().tag(tokens);
+			long lemmatized = System.nanoTime();
+			posTimer.record(lemmatized - tagged, TimeUnit.NANOSECONDS);
+			lemmas = engine.lemmatizer().lemmatize(tokens, posTags);
+			lemmatizeTimer.record(System.nanoTime() - lemmatized, TimeUnit.NANOSECONDS);
+		} finally {
+			engines.add(engine);
+		}
 		List<SpeechEntity> result = new ArrayList<>(tokens.length);
 		for (int i = 0; i < tokens.length; i++) {
 			String normal = tokens[i];
@@ -57,6 +119,50 @@ public class SpeechTaggerImpl implements SpeechTagger {
 		return expandWithWhitespace(result, message);
 	}
 	
+	/**
+	 * Borrow an engine, waiting for one if they are all in use. A worker of the parallel pool waits as a managed
+	 * blocker, so the pool can start another worker meanwhile instead of sitting on cores it isn't using.
+	 */
+	private Engine acquire() {
+		long start = System.nanoTime();
+		try {
+			Engine engine = engines.poll();
+			if (engine != null) {
+				return engine;
+			}
+			if (Thread.currentThread() instanceof ForkJoinWorkerThread) {
+				EngineBlocker blocker = new EngineBlocker();
+				ForkJoinPool.managedBlock(blocker);
+				return blocker.engine;
+			}
+			return engines.take();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for a tagger engine", e);
+		} finally {
+			poolWait.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		}
+	}
+	
+	private final class EngineBlocker implements ForkJoinPool.ManagedBlocker {
+		
+		private Engine engine;
+		
+		@Override
+		public boolean block() throws InterruptedException {
+			if (engine == null) {
+				engine = engines.take();
+			}
+			return true;
+		}
+		
+		@Override
+		public boolean isReleasable() {
+			return engine != null || (engine = engines.poll()) != null;
+		}
+		
+	}
+	
 	private List<SpeechEntity> expandWithWhitespace(List<SpeechEntity> entities, String message) {
 		List<SpeechEntity> result = new ArrayList<>();
 		int start = 0;
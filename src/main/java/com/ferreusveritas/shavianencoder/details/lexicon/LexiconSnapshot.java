@@ -0,0 +1,207 @@
+package com.ferreusveritas.shavianencoder.details.lexicon;
+
+import com.ferreusveritas.shavianencoder.core.lexicon.Lexicon;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+/**
+ * A binary copy of a generated {@link Lexicon} so that later starts can load it instead of parsing the dictionary
+ * and re-running the mapper over every pronunciation. The lexicon's arrays are written as they are and read back
+ * with bulk copies onto the heap; the file is closed as soon as it has been read, so nothing keeps it open or mapped
+ * and a reload can always replace it.
+ * The snapshot records a checksum of its sources and of its own payload and is rebuilt when either doesn't match.
+ */
+public class LexiconSnapshot {
+	
+	private static final Logger LOG = LoggerFactory.getLogger(LexiconSnapshot.class);
+	
+	private static final int MAGIC = 0x53484156; // "SHAV"
+	
+	/** Bump whenever the file layout or anything that changes the generated lexicon changes */
+	private static final int FORMAT_VERSION = 4;
+	
+	private static final int HEADER_SIZE = 4 + 4 + 8 + 4 + 8;
+	
+	private final Path file;
+	private final long sourceChecksum;
+	
+	public LexiconSnapshot(Path file, long sourceChecksum) {
+		this.file = file;
+		this.sourceChecksum = sourceChecksum;
+	}
+	
+	/** Checksum the inputs of lexicon generation: the raw dictionary and the IPA mapping table */
+	public static long sourceChecksum(InputStream dictionary, Map<String, String> ipa2shaw) throws IOException {
+		CRC32 crc = new CRC32();
+		byte[] buffer = new byte[64 * 1024];
+		int read;
+		while ((read = dictionary.read(buffer)) > 0) {
+			crc.update(buffer, 0, read);
+		}
+		new TreeMap<>(ipa2shaw).forEach((ipa, shaw) -> crc.update((ipa + "=" + shaw + "\n").getBytes(StandardCharsets.UTF_8)));
+		crc.update(FORMAT_VERSION);
+		return crc.getValue();
+	}
+	
+	/** Load the snapshot if it is present and current, otherwise build the lexicon and save a new snapshot */
+	public Lexicon loadOrBuild(Supplier<Lexicon> builder) {
+		long start = System.nanoTime();
+		Optional<Lexicon> loaded = load();
+		if (loaded.isPresent()) {
+			LOG.info("Loaded lexicon snapshot {} ({} headwords) in {} ms", file, loaded.get().size(), (System.nanoTime() - start) / 1_000_000);
+			return loaded.get();
+		}
+		Lexicon lexicon = builder.get();
+		LOG.info("Built lexicon ({} headwords) in {} ms", lexicon.size(), (System.nanoTime() - start) / 1_000_000);
+		try {
+			write(lexicon);
+			LOG.info("Saved lexicon snapshot {}", file);
+		} catch (IOException e) {
+			LOG.warn("Failed to save lexicon snapshot {}", file, e);
+		}
+		return lexicon;
+	}
+	
+	public Optional<Lexicon> load() {
+		if (!Files.isRegularFile(file)) {
+			return Optional.empty();
+		}
+		try {
+			ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+			if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+				LOG.info("Lexicon snapshot {} has an unknown format, rebuilding", file);
+				return Optional.empty();
+			}
+			if (buffer.getLong() != sourceChecksum) {
+				LOG.info("Lexicon snapshot {} is stale, rebuilding", file);
+				return Optional.empty();
+			}
+			int payloadLength = buffer.getInt();
+			long payloadChecksum = buffer.getLong();
+			if (buffer.remaining() != payloadLength) {
+				LOG.warn("Lexicon snapshot {} is truncated, rebuilding", file);
+				return Optional.empty();
+			}
+			CRC32 crc = new CRC32();
+			crc.update(buffer.slice());
+			if (crc.getValue() != payloadChecksum) {
+				LOG.warn("Lexicon snapshot {} is corrupt, rebuilding", file);
+				return Optional.empty();
+			}
+			return Optional.of(new Lexicon(readPayload(buffer)));
+		} catch (IOException | RuntimeException e) {
+			LOG.warn("Failed to read lexicon snapshot {}, rebuilding", file, e);
+			return Optional.empty();
+		}
+	}
+	
+	public void write(Lexicon lexicon) throws IOException {
+		ByteBuffer payload = writePayload(lexicon.tables());
+		CRC32 crc = new CRC32();
+		crc.update(payload.duplicate());
+		
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+			.putInt(MAGIC)
+			.putInt(FORMAT_VERSION)
+			.putLong(sourceChecksum)
+			.putInt(payload.remaining())
+			.putLong(crc.getValue());
+		
+		Path dir = file.toAbsolutePath().getParent();
+		Files.createDirectories(dir);
+		Path temp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+		try {
+			try (OutputStream out = Files.newOutputStream(temp)) {
+				out.write(header.array());
+				out.write(payload.array(), payload.position(), payload.remaining());
+			}
+			Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+	
+	private static ByteBuffer writePayload(Lexicon.Tables tables) {
+		long size = 4L * 7
+			+ 2L * (tables.headwordChars().length + tables.shavianChars().length)
+			+ 4L * (tables.headwordOffsets().length + tables.entryOffsets().length + tables.entryShavian().length
+				+ tables.entryPos().length + tables.shavianOffsets().length);
+		if (size > Integer.MAX_VALUE - 8) {
+			throw new IllegalStateException("Lexicon is too large for a snapshot");
+		}
+		ByteBuffer out = ByteBuffer.allocate((int) size);
+		putChars(out, tables.headwordChars());
+		putInts(out, tables.headwordOffsets());
+		putInts(out, tables.entryOffsets());
+		putInts(out, tables.entryShavian());
+		putInts(out, tables.entryPos());
+		putChars(out, tables.shavianChars());
+		putInts(out, tables.shavianOffsets());
+		return out.flip();
+	}
+	
+	private static Lexicon.Tables readPayload(ByteBuffer in) {
+		Lexicon.Tables tables = new Lexicon.Tables(
+			getChars(in),
+			getInts(in),
+			getInts(in),
+			getInts(in),
+			getInts(in),
+			getChars(in),
+			getInts(in)
+		);
+		if (in.hasRemaining()) {
+			throw new IllegalArgumentException("Lexicon snapshot has " + in.remaining() + " bytes left over");
+		}
+		return tables;
+	}
+	
+	private static void putChars(ByteBuffer out, char[] chars) {
+		out.putInt(chars.length);
+		out.asCharBuffer().put(chars);
+		out.position(out.position() + 2 * chars.length);
+	}
+	
+	private static void putInts(ByteBuffer out, int[] ints) {
+		out.putInt(ints.length);
+		out.asIntBuffer().put(ints);
+		out.position(out.position() + 4 * ints.length);
+	}
+	
+	private static char[] getChars(ByteBuffer in) {
+		char[] chars = new char[checkLength(in, in.getInt(), 2)];
+		in.asCharBuffer().get(chars);
+		in.position(in.position() + 2 * chars.length);
+		return chars;
+	}
+	
+	private static int[] getInts(ByteBuffer in) {
+		int[] ints = new int[checkLength(in, in.getInt(), 4)];
+		in.asIntBuffer().get(ints);
+		in.position(in.position() + 4 * ints.length);
+		return ints;
+	}
+	
+	/** Check an array length read from the file before allocating for it */
+	private static int checkLength(ByteBuffer in, int length, int elementSize) {
+		if (length < 0 || length > in.remaining() / elementSize) {
+			throw new IllegalArgumentException("Lexicon snapshot array of " + length + " elements overruns the file");
+		}
+		return length;
+	}
+	
+}
@@ -0,0 +1,60 @@
+package com.ferreusveritas.shavianencoder.app.cli;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CorpusConverterTest {
+	
+	@TempDir
+	Path dir;
+	
+	private CorpusConverter converter(Path out, Path journal) {
+		// Nothing is converted when the inputs are refused, so there is no need for a transliterator
+		return new CorpusConverter(null, new SimpleMeterRegistry().counter("shavian.tokens"), out, journal, "*.txt", 1);
+	}
+	
+	@Test
+	void refusesSameNamedFiles() throws IOException {
+		Path a = write("a/notes.txt");
+		Path b = write("b/notes.txt");
+		Path out = dir.resolve("out");
+		assertThatThrownBy(() -> converter(out, out.resolve(".shavian-progress")).convert(List.of(a, b)))
+			.isInstanceOf(IllegalArgumentException.class)
+			.hasMessageContaining("notes.txt");
+		assertThat(out).doesNotExist();
+	}
+	
+	@Test
+	void refusesSameNamedDirectories() throws IOException {
+		write("one/corpus/x.txt");
+		write("two/corpus/x.txt");
+		Path out = dir.resolve("out");
+		assertThatThrownBy(() -> converter(out, out.resolve(".shavian-progress")).convert(List.of(dir.resolve("one/corpus"), dir.resolve("two/corpus"))))
+			.isInstanceOf(IllegalArgumentException.class);
+	}
+	
+	@Test
+	void refusesToOverwriteTheJournal() throws IOException {
+		Path input = write("progress.txt");
+		Path out = dir.resolve("out");
+		assertThatThrownBy(() -> converter(out, out.resolve("progress.txt")).convert(List.of(input)))
+			.isInstanceOf(IllegalArgumentException.class)
+			.hasMessageContaining("journal");
+	}
+	
+	private Path write(String name) throws IOException {
+		Path file = dir.resolve(name);
+		Files.createDirectories(file.getParent());
+		return Files.writeString(file, "Text.");
+	}
+	
+}
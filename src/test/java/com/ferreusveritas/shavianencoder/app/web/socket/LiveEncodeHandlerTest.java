@@ -0,0 +1,181 @@
+package com.ferreusveritas.shavianencoder.app.web.socket;
+
+import com.ferreusveritas.shavianencoder.core.encoder.Transliterator;
+import com.ferreusveritas.shavianencoder.core.lexicon.LexiconVersion;
+import com.ferreusveritas.shavianencoder.core.model.TokenExplanation;
+import com.ferreusveritas.shavianencoder.core.services.LexiconService;
+import com.ferreusveritas.shavianencoder.core.services.Pipeline;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.websocket.CloseReason;
+import jakarta.websocket.RemoteEndpoint;
+import jakarta.websocket.SendHandler;
+import jakarta.websocket.SendResult;
+import jakarta.websocket.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.adapter.standard.StandardWebSocketSession;
+
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Proxy;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** The handler over a stand-in container whose sends complete only when the test says so */
+class LiveEncodeHandlerTest {
+	
+	private static final Transliterator UPPER_CASE = new Transliterator() {
+		@Override
+		public String transliterate(String input) {
+			return input.toUpperCase();
+		}
+		
+		@Override
+		public String transliterate(String input, List<TokenExplanation> explanations) {
+			return transliterate(input);
+		}
+		
+		@Override
+		public void transliterate(Reader input, Writer output) {
+			throw new UnsupportedOperationException();
+		}
+		
+		@Override
+		public List<String> sentences(String input) {
+			return List.of(input);
+		}
+	};
+	
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final List<String> sent = new ArrayList<>();
+	private final List<SendHandler> inFlight = new ArrayList<>();
+	private final List<CloseReason> closes = new ArrayList<>();
+	private long sendTimeout;
+	private LiveEncodeHandler handler;
+	private StandardWebSocketSession session;
+	
+	@BeforeEach
+	void connect() throws Exception {
+		LexiconService lexiconService = new LexiconService(
+			version -> new Pipeline(new LexiconVersion(version, Instant.now()), UPPER_CASE, null),
+			new SimpleMeterRegistry()
+		);
+		// Tasks run on the calling thread, so each step has finished when the call returns
+		handler = new LiveEncodeHandler(lexiconService, Runnable::run, meterRegistry, 10, Duration.ofSeconds(5));
+		session = new StandardWebSocketSession(new HttpHeaders(), Map.of(), null, null);
+		session.initializeNativeSession(nativeSession());
+		handler.afterConnectionEstablished(session);
+	}
+	
+	@Test
+	void updatesWaitForTheReplyInFlight() throws Exception {
+		assertThat(sendTimeout).isEqualTo(5000);
+		handler.handleMessage(session, new TextMessage("1\tab"));
+		handler.handleMessage(session, new TextMessage("2\tcd"));
+		handler.handleMessage(session, new TextMessage("3\tef"));
+		assertThat(sent).containsExactly("1\tAB");
+		
+		complete(null);
+		assertThat(sent).containsExactly("1\tAB", "3\tEF");
+		complete(null);
+		assertThat(inFlight).isEmpty();
+		assertThat(meterRegistry.counter("shavian.live.updates", "result", "sent").count()).isEqualTo(2);
+		assertThat(meterRegistry.counter("shavian.live.updates", "result", "coalesced").count()).isEqualTo(1);
+		assertThat(closes).isEmpty();
+	}
+	
+	@Test
+	void failedSendClosesTheConnection() throws Exception {
+		handler.handleMessage(session, new TextMessage("ab"));
+		complete(new SocketTimeoutException("timed out"));
+		assertThat(closes).extracting(reason -> reason.getCloseCode().getCode()).containsExactly(CloseStatus.SESSION_NOT_RELIABLE.getCode());
+		assertThat(meterRegistry.counter("shavian.live.updates", "result", "failed").count()).isEqualTo(1);
+		
+		handler.handleMessage(session, new TextMessage("cd"));
+		assertThat(sent).containsExactly("AB");
+	}
+	
+	@Test
+	void oversizedUpdateClosesOnceTheReplyInFlightIsSent() throws Exception {
+		handler.handleMessage(session, new TextMessage("ab"));
+		handler.handleMessage(session, new TextMessage("x".repeat(11)));
+		assertThat(closes).isEmpty();
+		
+		complete(null);
+		assertThat(closes).extracting(reason -> reason.getCloseCode().getCode()).containsExactly(CloseStatus.TOO_BIG_TO_PROCESS.getCode());
+		assertThat(sent).containsExactly("AB");
+	}
+	
+	@Test
+	void oversizedUpdateClosesStraightAwayWhenIdle() throws Exception {
+		handler.handleMessage(session, new TextMessage("x".repeat(11)));
+		assertThat(closes).extracting(reason -> reason.getCloseCode().getCode()).containsExactly(CloseStatus.TOO_BIG_TO_PROCESS.getCode());
+		assertThat(sent).isEmpty();
+	}
+	
+	private void complete(Throwable failure) {
+		SendHandler sendHandler = inFlight.remove(0);
+		sendHandler.onResult(failure == null ? new SendResult() : new SendResult(failure));
+	}
+	
+	private Session nativeSession() {
+		RemoteEndpoint.Async remote = (RemoteEndpoint.Async) Proxy.newProxyInstance(
+			getClass().getClassLoader(),
+			new Class<?>[] { RemoteEndpoint.Async.class },
+			(proxy, method, args) -> switch (method.getName()) {
+				case "setSendTimeout" -> {
+					sendTimeout = (Long) args[0];
+					yield null;
+				}
+				case "sendText" -> {
+					assertThat(inFlight).as("sends in flight").isEmpty();
+					sent.add((String) args[0]);
+					inFlight.add((SendHandler) args[1]);
+					yield null;
+				}
+				default -> throw new UnsupportedOperationException(method.getName());
+			}
+		);
+		return (Session) Proxy.newProxyInstance(
+			getClass().getClassLoader(),
+			new Class<?>[] { Session.class },
+			(proxy, method, args) -> switch (method.getName()) {
+				case "getId" -> "1";
+				case "isOpen" -> closes.isEmpty();
+				case "getAsyncRemote" -> remote;
+				case "close" -> {
+					assertThat(inFlight).as("sends in flight on close").isEmpty();
+					closes.add((CloseReason) args[0]);
+					yield null;
+				}
+				default -> neutral(method.getReturnType());
+			}
+		);
+	}
+	
+	/** What the session reports for everything the handler doesn't use, read once when the session is set up */
+	private static Object neutral(Class<?> type) {
+		if (type == List.class) {
+			return List.of();
+		} else if (type == Map.class) {
+			return Map.of();
+		} else if (type == int.class) {
+			return 0;
+		} else if (type == long.class) {
+			return 0L;
+		} else if (type == boolean.class) {
+			return false;
+		}
+		return null;
+	}
+	
+}
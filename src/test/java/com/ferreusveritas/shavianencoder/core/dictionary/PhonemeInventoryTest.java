@@ -0,0 +1,51 @@
+package com.ferreusveritas.shavianencoder.core.dictionary;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PhonemeInventoryTest {
+	
+	private final PhonemeInventory inventory = PhonemeInventory.shared();
+	
+	@Test
+	void idsSurviveLaterAdditions() {
+		List<String> first = List.of("inventory-test-p", "inventory-test-ə", "inventory-test-oʊ");
+		Map<String, Short> ids = new HashMap<>();
+		first.forEach(phoneme -> ids.put(phoneme, inventory.id(phoneme)));
+		int size = inventory.size();
+		
+		// A reload reading a dictionary with phonemes the first one didn't have
+		List<String> added = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			added.add("inventory-test-new-" + i);
+			assertThat(inventory.id(added.get(i))).isGreaterThanOrEqualTo((short) size);
+		}
+		first.forEach(phoneme -> assertThat(inventory.id(phoneme)).isEqualTo(ids.get(phoneme)));
+		first.forEach(phoneme -> assertThat(inventory.phoneme(ids.get(phoneme))).isEqualTo(phoneme));
+		added.forEach(phoneme -> assertThat(inventory.phoneme(inventory.id(phoneme))).isEqualTo(phoneme));
+		assertThat(inventory.size()).isEqualTo(size + added.size());
+	}
+	
+	@Test
+	void concurrentAdditionsAgreeOnIds() {
+		Map<String, Short> seen = new ConcurrentHashMap<>();
+		IntStream.range(0, 20_000).parallel().forEach(i -> {
+			String phoneme = "inventory-test-concurrent-" + (i % 500);
+			short id = inventory.id(phoneme);
+			Short other = seen.putIfAbsent(phoneme, id);
+			assertThat(other == null || other == id).isTrue();
+			assertThat(inventory.phoneme(id)).isEqualTo(phoneme);
+		});
+		assertThat(new HashSet<>(seen.values())).hasSize(500);
+	}
+	
+}
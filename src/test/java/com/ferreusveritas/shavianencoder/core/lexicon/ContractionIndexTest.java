@@ -0,0 +1,122 @@
+package com.ferreusveritas.shavianencoder.core.lexicon;
+
+import com.ferreusveritas.shavianencoder.core.dictionary.Dictionary;
+import com.ferreusveritas.shavianencoder.core.dictionary.DictionaryEntry;
+import com.ferreusveritas.shavianencoder.core.dictionary.Pronunciation;
+import com.ferreusveritas.shavianencoder.core.dictionary.Syllable;
+import com.ferreusveritas.shavianencoder.core.model.UDPosTag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** The contraction index against the dictionary lookup it replaced */
+class ContractionIndexTest {
+	
+	private static final String LETTERS = "abcdefghij'";
+	private static final List<String> EDGE_CASES = List.of(
+		"'tis", "dogs'", "'n'", "o'clock", "rock'n'roll", "'", "''", "a'", "'a"
+	);
+	
+	@Test
+	void matchesTheDictionaryScan() {
+		Random random = new Random(23);
+		Map<String, List<DictionaryEntry>> words = randomDictionary(random, 5_000);
+		Dictionary dictionary = dictionary(words);
+		Lexicon lexicon = new Lexicon(pronunciation -> "𐑩", dictionary);
+		ContractionIndex index = ContractionIndex.of(lexicon);
+		
+		assertThat(index.size()).isEqualTo(words.keySet().stream().filter(word -> word.indexOf('\'') >= 0).count());
+		List<String[]> queries = new ArrayList<>();
+		for (String word : words.keySet()) {
+			// Every way of splitting the word at an apostrophe, as the tokenizer might
+			for (int i = word.indexOf('\''); i >= 0; i = word.indexOf('\'', i + 1)) {
+				queries.add(new String[] { word.substring(0, i), word.substring(i + 1) });
+				queries.add(new String[] { word.substring(0, i).toUpperCase(), word.substring(i + 1) });
+			}
+		}
+		for (int i = 0; i < 5_000; i++) {
+			queries.add(new String[] { randomWord(random), randomWord(random) });
+		}
+		queries.add(new String[] { "", "" });
+		queries.add(new String[] { "", "tis" });
+		queries.add(new String[] { "dogs", "" });
+		queries.add(new String[] { "a".repeat(10_000), "" });
+		queries.add(new String[] { "ab".repeat(5_000), "ab".repeat(5_000) });
+		
+		for (String[] query : queries) {
+			String head = query[0];
+			String tail = query[1];
+			assertThat(index.contains(head, tail))
+				.as(head + "'" + tail)
+				.isEqualTo(!dictionary.entries((head + "'" + tail).toLowerCase()).isEmpty());
+		}
+	}
+	
+	@Test
+	void snapshotsKeepTheSameContractions() {
+		Map<String, List<DictionaryEntry>> words = randomDictionary(new Random(5), 2_000);
+		Lexicon lexicon = new Lexicon(pronunciation -> "𐑩", dictionary(words));
+		ContractionIndex original = ContractionIndex.of(lexicon);
+		ContractionIndex reloaded = ContractionIndex.of(new Lexicon(lexicon.tables()));
+		assertThat(reloaded.size()).isEqualTo(original.size());
+		for (String word : EDGE_CASES) {
+			int i = word.indexOf('\'');
+			assertThat(reloaded.contains(word.substring(0, i), word.substring(i + 1))).isTrue();
+		}
+	}
+	
+	@Test
+	void emptyLexicon() {
+		ContractionIndex index = ContractionIndex.of(new Lexicon(Map.of()));
+		assertThat(index.size()).isZero();
+		assertThat(index.contains("", "")).isFalse();
+		assertThat(index.contains("don", "t")).isFalse();
+	}
+	
+	private static Dictionary dictionary(Map<String, List<DictionaryEntry>> words) {
+		return new Dictionary() {
+			@Override
+			public List<String> words() {
+				return List.copyOf(words.keySet());
+			}
+			
+			@Override
+			public List<DictionaryEntry> entries(String word) {
+				return words.getOrDefault(word, List.of());
+			}
+		};
+	}
+	
+	/** Short words over a small alphabet, so that random queries often hit, with apostrophes anywhere */
+	private static Map<String, List<DictionaryEntry>> randomDictionary(Random random, int count) {
+		Map<String, List<DictionaryEntry>> words = new LinkedHashMap<>();
+		for (String word : EDGE_CASES) {
+			words.put(word, List.of(entry(word)));
+		}
+		while (words.size() < count) {
+			String word = randomWord(random);
+			words.put(word, List.of(entry(word)));
+		}
+		return words;
+	}
+	
+	private static String randomWord(Random random) {
+		StringBuilder word = new StringBuilder();
+		for (int i = random.nextInt(5) + 1; i > 0; i--) {
+			word.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+		}
+		return word.toString();
+	}
+	
+	private static DictionaryEntry entry(String word) {
+		return new DictionaryEntry(word, EnumSet.of(UDPosTag.NOUN), List.of(new Pronunciation(List.of(new Syllable(List.of("ə"))))));
+	}
+	
+}
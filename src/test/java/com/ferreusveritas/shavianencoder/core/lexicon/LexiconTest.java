@@ -0,0 +1,235 @@
+package com.ferreusveritas.shavianencoder.core.lexicon;
+
+import com.ferreusveritas.shavianencoder.core.dictionary.Dictionary;
+import com.ferreusveritas.shavianencoder.core.dictionary.DictionaryEntry;
+import com.ferreusveritas.shavianencoder.core.dictionary.PhonemeInventory;
+import com.ferreusveritas.shavianencoder.core.dictionary.Pronunciation;
+import com.ferreusveritas.shavianencoder.core.dictionary.Syllable;
+import com.ferreusveritas.shavianencoder.core.model.UDPosTag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** The flat array lexicon against the map it is built from */
+class LexiconTest {
+	
+	private static final String LETTERS = "abcdefghijklmnopqrstuvwxyz'-.";
+	private static final String[] SPELLINGS = { "𐑮𐑰𐑛", "𐑮𐑧𐑛", "𐑞", "𐑩", "𐑚𐑪𐑚", "𐑑𐑦𐑟", "" };
+	
+	@Test
+	void emptyLexicon() {
+		Lexicon lexicon = new Lexicon(Map.of());
+		assertThat(lexicon.size()).isZero();
+		assertThat(lexicon.getEntries("")).isEmpty();
+		assertThat(lexicon.getEntries("word")).isEmpty();
+		assertThat(lexicon.isUnambiguous("word")).isFalse();
+	}
+	
+	@Test
+	void closedClassWords() {
+		Lexicon lexicon = new Lexicon(Map.of(
+			"the", List.of(new LexiconEntry("𐑞", EnumSet.of(UDPosTag.DET))),
+			"that", List.of(new LexiconEntry("𐑞𐑨𐑑", EnumSet.of(UDPosTag.DET, UDPosTag.PRON, UDPosTag.SCONJ))),
+			"apple", List.of(new LexiconEntry("𐑨𐑐𐑩𐑤", EnumSet.of(UDPosTag.NOUN))),
+			"may", List.of(
+				new LexiconEntry("𐑥𐑱", EnumSet.of(UDPosTag.AUX)),
+				new LexiconEntry("𐑥𐑱", EnumSet.of(UDPosTag.PROPN))
+			),
+			"um", List.of(new LexiconEntry("𐑳𐑥", EnumSet.noneOf(UDPosTag.class)))
+		));
+		assertThat(lexicon.isClosedClass("The")).isTrue();
+		assertThat(lexicon.isClosedClass("that")).isTrue();
+		assertThat(lexicon.isClosedClass("Apple")).isFalse();
+		assertThat(lexicon.isClosedClass("May")).isFalse();
+		assertThat(lexicon.isClosedClass("um")).isFalse();
+		assertThat(lexicon.isClosedClass("missing")).isFalse();
+	}
+	
+	@Test
+	void lookupsMatchTheMap() {
+		Map<String, List<LexiconEntry>> entries = randomEntries(new Random(7), 20_000);
+		entries.put("'tis", List.of(new LexiconEntry("𐑑𐑦𐑟", EnumSet.of(UDPosTag.PRON))));
+		entries.put("dogs'", List.of(new LexiconEntry("𐑛𐑪𐑜𐑟", EnumSet.of(UDPosTag.NOUN))));
+		entries.put("", List.of(new LexiconEntry("𐑩", EnumSet.noneOf(UDPosTag.class))));
+		Lexicon lexicon = new Lexicon(entries);
+		
+		assertThat(lexicon.size()).isEqualTo(entries.size());
+		for (Map.Entry<String, List<LexiconEntry>> entry : entries.entrySet()) {
+			String word = entry.getKey();
+			assertThat(lexicon.hasWord(word)).isTrue();
+			assertThat(lexicon.getEntries(word)).isEqualTo(entry.getValue());
+			assertThat(lexicon.getEntries(word.toUpperCase())).isEqualTo(entry.getValue());
+			assertThat(lexicon.isUnambiguous(word)).isEqualTo(isUnambiguous(entry.getValue()));
+		}
+		for (String missing : List.of("a b", "x1", "'9", "dogs 9")) {
+			assertThat(lexicon.hasWord(missing)).isFalse();
+			assertThat(lexicon.getEntries(missing)).isEmpty();
+			assertThat(lexicon.isUnambiguous(missing)).isFalse();
+		}
+		
+		Map<String, List<LexiconEntry>> visited = new LinkedHashMap<>();
+		lexicon.forEach(visited::put);
+		assertThat(visited).containsExactlyEntriesOf(new TreeMap<>(entries));
+	}
+	
+	@Test
+	void spellingsAreStoredOnce() {
+		Map<String, List<LexiconEntry>> entries = randomEntries(new Random(11), 5_000);
+		Set<String> distinct = new HashSet<>();
+		entries.values().forEach(list -> list.forEach(entry -> distinct.add(entry.shavian())));
+		assertThat(new Lexicon(entries).spellingCount()).isEqualTo(distinct.size());
+	}
+	
+	@Test
+	void tablesRebuildTheSameLexicon() {
+		Map<String, List<LexiconEntry>> entries = randomEntries(new Random(13), 5_000);
+		Lexicon copy = new Lexicon(new Lexicon(entries).tables());
+		for (Map.Entry<String, List<LexiconEntry>> entry : entries.entrySet()) {
+			assertThat(copy.getEntries(entry.getKey())).isEqualTo(entry.getValue());
+			assertThat(copy.isUnambiguous(entry.getKey())).isEqualTo(isUnambiguous(entry.getValue()));
+		}
+	}
+	
+	@Test
+	void parallelBuildMatchesASequentialOne() {
+		Map<String, List<DictionaryEntry>> words = randomDictionary(new Random(21), 20_000);
+		Dictionary dictionary = new Dictionary() {
+			@Override
+			public List<String> words() {
+				return List.copyOf(words.keySet());
+			}
+			
+			@Override
+			public List<DictionaryEntry> entries(String word) {
+				return words.get(word);
+			}
+		};
+		
+		Lexicon.Tables parallel = new Lexicon(LexiconTest::map, dictionary).tables();
+		Lexicon.Tables sequential = new Lexicon(sequentialBuild(words)).tables();
+		assertThat(parallel.headwordChars()).isEqualTo(sequential.headwordChars());
+		assertThat(parallel.headwordOffsets()).isEqualTo(sequential.headwordOffsets());
+		assertThat(parallel.entryOffsets()).isEqualTo(sequential.entryOffsets());
+		assertThat(parallel.entryShavian()).isEqualTo(sequential.entryShavian());
+		assertThat(parallel.entryPos()).isEqualTo(sequential.entryPos());
+		assertThat(parallel.shavianChars()).isEqualTo(sequential.shavianChars());
+		assertThat(parallel.shavianOffsets()).isEqualTo(sequential.shavianOffsets());
+	}
+	
+	/**
+	 * The lexicon as it was generated before it went parallel, one headword after another: variants grouped by
+	 * part of speech in dictionary order, each group ranked with /w/ before /hw/ and then longest first
+	 */
+	private static Map<String, List<LexiconEntry>> sequentialBuild(Map<String, List<DictionaryEntry>> words) {
+		Map<String, List<LexiconEntry>> lexicon = new HashMap<>();
+		for (Map.Entry<String, List<DictionaryEntry>> word : words.entrySet()) {
+			Map<Set<UDPosTag>, List<LexiconEntry>> byPos = new LinkedHashMap<>();
+			for (DictionaryEntry entry : word.getValue()) {
+				StringBuilder shavian = new StringBuilder();
+				entry.pronunciations().forEach(pronunciation -> shavian.append(map(pronunciation)));
+				byPos.computeIfAbsent(entry.tags(), tags -> new ArrayList<>()).add(new LexiconEntry(shavian.toString(), entry.tags()));
+			}
+			List<LexiconEntry> variants = new ArrayList<>();
+			for (List<LexiconEntry> group : byPos.values()) {
+				List<LexiconEntry> ranked = new ArrayList<>(group);
+				if (ranked.size() > 1) {
+					ranked.sort((a, b) -> {
+						boolean aHasHW = a.shavian().contains("𐑣𐑢");
+						boolean bHasHW = b.shavian().contains("𐑣𐑢");
+						if (aHasHW || bHasHW) {
+							return aHasHW && !bHasHW ? 1 : !aHasHW ? -1 : 0;
+						}
+						return Integer.compare(a.shavian().length(), b.shavian().length());
+					});
+				}
+				variants.addAll(ranked);
+			}
+			lexicon.put(word.getKey(), variants);
+		}
+		return lexicon;
+	}
+	
+	private static final Map<String, String> IPA = Map.of("h", "𐑣", "w", "𐑢", "k", "𐑒", "æ", "𐑨", "t", "𐑑", "ə", "𐑩", "n", "𐑯", "s", "𐑕");
+	private static final List<String> PHONEMES = List.copyOf(IPA.keySet());
+	
+	/** A stand in for the IPA mapper, one letter per phoneme */
+	private static String map(Pronunciation pronunciation) {
+		StringBuilder shavian = new StringBuilder();
+		for (int s = 0; s < pronunciation.syllableCount(); s++) {
+			for (int i = pronunciation.syllableStart(s); i < pronunciation.syllableEnd(s); i++) {
+				shavian.append(IPA.get(PhonemeInventory.shared().phoneme(pronunciation.phonemeId(i))));
+			}
+		}
+		return shavian.toString();
+	}
+	
+	/** Headwords with several entries, often sharing a part of speech so that they are ranked against each other */
+	private static Map<String, List<DictionaryEntry>> randomDictionary(Random random, int count) {
+		Map<String, List<DictionaryEntry>> words = new LinkedHashMap<>();
+		UDPosTag[] tags = { UDPosTag.NOUN, UDPosTag.VERB, UDPosTag.ADJ, UDPosTag.PROPN };
+		while (words.size() < count) {
+			StringBuilder word = new StringBuilder();
+			for (int i = random.nextInt(12) + 1; i > 0; i--) {
+				word.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+			}
+			List<DictionaryEntry> entries = new ArrayList<>();
+			for (int e = random.nextInt(4) + 1; e > 0; e--) {
+				Set<UDPosTag> pos = EnumSet.of(tags[random.nextInt(tags.length)]);
+				List<Pronunciation> pronunciations = new ArrayList<>();
+				for (int p = random.nextInt(2) + 1; p > 0; p--) {
+					List<Syllable> syllables = new ArrayList<>();
+					for (int s = random.nextInt(3) + 1; s > 0; s--) {
+						List<String> phonemes = new ArrayList<>();
+						for (int i = random.nextInt(3) + 1; i > 0; i--) {
+							phonemes.add(PHONEMES.get(random.nextInt(PHONEMES.size())));
+						}
+						syllables.add(new Syllable(phonemes));
+					}
+					pronunciations.add(new Pronunciation(syllables));
+				}
+				entries.add(new DictionaryEntry(word.toString(), pos, pronunciations));
+			}
+			words.put(word.toString(), entries);
+		}
+		return words;
+	}
+	
+	/** One spelling for every part of speech, and never a proper noun */
+	private static boolean isUnambiguous(List<LexiconEntry> entries) {
+		return entries.stream().map(LexiconEntry::shavian).distinct().count() <= 1
+			&& entries.stream().noneMatch(entry -> entry.pos().contains(UDPosTag.PROPN));
+	}
+	
+	private static Map<String, List<LexiconEntry>> randomEntries(Random random, int count) {
+		Map<String, List<LexiconEntry>> entries = new HashMap<>();
+		UDPosTag[] tags = UDPosTag.values();
+		while (entries.size() < count) {
+			StringBuilder word = new StringBuilder();
+			for (int i = random.nextInt(12) + 1; i > 0; i--) {
+				word.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+			}
+			List<LexiconEntry> variants = new ArrayList<>();
+			for (int i = random.nextInt(3) + 1; i > 0; i--) {
+				Set<UDPosTag> pos = EnumSet.noneOf(UDPosTag.class);
+				for (int j = random.nextInt(3); j > 0; j--) {
+					pos.add(tags[random.nextInt(tags.length)]);
+				}
+				variants.add(new LexiconEntry(SPELLINGS[random.nextInt(SPELLINGS.length)] + random.nextInt(3), pos));
+			}
+			entries.put(word.toString(), List.copyOf(variants));
+		}
+		return entries;
+	}
+	
+}
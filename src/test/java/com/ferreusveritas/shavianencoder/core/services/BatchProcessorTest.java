@@ -0,0 +1,60 @@
+package com.ferreusveritas.shavianencoder.core.services;
+
+import com.ferreusveritas.shavianencoder.core.model.BatchItemResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BatchProcessorTest {
+	
+	private final ExecutorService executor = Executors.newFixedThreadPool(4);
+	private final BatchProcessor processor = new BatchProcessor(executor, 3, 10);
+	
+	@AfterEach
+	void shutdown() {
+		executor.shutdownNow();
+	}
+	
+	@Test
+	void resultsAreInInputOrder() {
+		assertThat(processor.process(List.of("a", "bb", "ccc"), String::toUpperCase))
+			.containsExactly(BatchItemResponse.success("A"), BatchItemResponse.success("BB"), BatchItemResponse.success("CCC"));
+	}
+	
+	@Test
+	void nullAndEmptyItemsFailOnlyTheirOwnSlot() {
+		List<BatchItemResponse> results = processor.process(Arrays.asList("a", null, ""), String::toUpperCase);
+		assertThat(results.get(0)).isEqualTo(BatchItemResponse.success("A"));
+		assertThat(results.get(1)).isEqualTo(BatchItemResponse.failure("message is required"));
+		assertThat(results.get(2)).isEqualTo(BatchItemResponse.failure("message is required"));
+	}
+	
+	@Test
+	void failingItemFailsOnlyItsOwnSlot() {
+		List<BatchItemResponse> results = processor.process(List.of("a", "b"), message -> {
+			if (message.equals("a")) {
+				throw new IllegalStateException("broken");
+			}
+			return message;
+		});
+		assertThat(results).containsExactly(BatchItemResponse.failure("IllegalStateException: broken"), BatchItemResponse.success("b"));
+	}
+	
+	@Test
+	void batchesOverTheLimitsAreRejected() {
+		assertThatThrownBy(() -> processor.process(List.of("a", "b", "c", "d"), message -> message))
+			.isInstanceOf(LimitExceededException.class)
+			.hasMessage("Batch has 4 items, the limit is 3");
+		assertThatThrownBy(() -> processor.process(List.of("abcdef", "ghijkl"), message -> message))
+			.isInstanceOf(LimitExceededException.class)
+			.hasMessage("Batch has 12 characters, the limit is 10");
+	}
+	
+}
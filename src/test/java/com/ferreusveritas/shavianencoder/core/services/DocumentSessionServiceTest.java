@@ -0,0 +1,172 @@
+package com.ferreusveritas.shavianencoder.core.services;
+
+import com.ferreusveritas.shavianencoder.core.encoder.Transliterator;
+import com.ferreusveritas.shavianencoder.core.lexicon.LexiconVersion;
+import com.ferreusveritas.shavianencoder.core.model.DocumentEdit;
+import com.ferreusveritas.shavianencoder.core.model.DocumentResponse;
+import com.ferreusveritas.shavianencoder.core.model.TokenExplanation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DocumentSessionServiceTest {
+	
+	/** Upper cases each line, one line per sentence, and fails on a line containing "!" */
+	private static final Transliterator UPPER_CASE = new Transliterator() {
+		@Override
+		public String transliterate(String input) {
+			if (input.contains("!")) {
+				throw new IllegalArgumentException("Transliterator failed");
+			}
+			return input.toUpperCase();
+		}
+		
+		@Override
+		public String transliterate(String input, List<TokenExplanation> explanations) {
+			return transliterate(input);
+		}
+		
+		@Override
+		public void transliterate(Reader input, Writer output) {
+			throw new UnsupportedOperationException();
+		}
+		
+		@Override
+		public List<String> sentences(String input) {
+			List<String> sentences = new ArrayList<>();
+			int start = 0;
+			for (int i = input.indexOf('\n'); i >= 0; i = input.indexOf('\n', start)) {
+				sentences.add(input.substring(start, i + 1));
+				start = i + 1;
+			}
+			if (start < input.length()) {
+				sentences.add(input.substring(start));
+			}
+			return sentences;
+		}
+	};
+	
+	private final List<DocumentSessionService> services = new ArrayList<>();
+	
+	@AfterEach
+	void shutdown() {
+		services.forEach(DocumentSessionService::shutdown);
+	}
+	
+	private DocumentSessionService service(int maxSessions, int maxLength) throws IOException {
+		LexiconService lexiconService = new LexiconService(
+			version -> new Pipeline(new LexiconVersion(version, Instant.now()), UPPER_CASE, null),
+			new SimpleMeterRegistry()
+		);
+		DocumentSessionService service = new DocumentSessionService(lexiconService, new SimpleMeterRegistry(), Duration.ofMinutes(10), maxSessions, maxLength);
+		services.add(service);
+		return service;
+	}
+	
+	@Test
+	void concurrentOpensStayWithinTheCap() throws Exception {
+		DocumentSessionService service = service(10, 100);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			CountDownLatch start = new CountDownLatch(1);
+			AtomicInteger refused = new AtomicInteger();
+			List<Future<String>> opens = new ArrayList<>();
+			for (int i = 0; i < 50; i++) {
+				opens.add(executor.submit(() -> {
+					start.await();
+					try {
+						return service.open("a\nb").id();
+					} catch (ServiceOverloadedException e) {
+						refused.incrementAndGet();
+						return null;
+					}
+				}));
+			}
+			start.countDown();
+			List<String> ids = new ArrayList<>();
+			for (Future<String> open : opens) {
+				if (open.get() != null) {
+					ids.add(open.get());
+				}
+			}
+			assertThat(ids).hasSize(10);
+			assertThat(refused).hasValue(40);
+			
+			// Closing gives the slot back
+			service.close(ids.get(0));
+			assertThat(service.open("c").message()).isEqualTo("C");
+			assertThatThrownBy(() -> service.open("d")).isInstanceOf(ServiceOverloadedException.class);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	@Test
+	void documentsAreCappedOnOpeningAndAfterEdits() throws IOException {
+		DocumentSessionService service = service(10, 10);
+		assertThatThrownBy(() -> service.open("x".repeat(11))).isInstanceOf(LimitExceededException.class);
+		
+		DocumentResponse document = service.open("abc\ndef");
+		assertThat(service.edit(document.id(), List.of(new DocumentEdit(7, 7, "gh"))).spans()).isNotEmpty();
+		assertThatThrownBy(() -> service.edit(document.id(), List.of(new DocumentEdit(0, 0, "xy"))))
+			.isInstanceOf(LimitExceededException.class)
+			.hasMessageContaining("session closed");
+		assertThatThrownBy(() -> service.document(document.id())).isInstanceOf(SessionNotFoundException.class);
+		
+		// Both refusals gave their slots back
+		for (int i = 0; i < 10; i++) {
+			service.open("a");
+		}
+	}
+	
+	@Test
+	void invalidEditsCloseTheSession() throws IOException {
+		DocumentSessionService service = service(10, 100);
+		DocumentResponse document = service.open("abc\ndef");
+		assertThatThrownBy(() -> service.edit(document.id(), List.of(new DocumentEdit(5, 9, "x"))))
+			.isInstanceOf(InvalidEditException.class)
+			.hasMessageContaining("session closed");
+		assertThatThrownBy(() -> service.close(document.id())).isInstanceOf(SessionNotFoundException.class);
+		assertThatThrownBy(() -> service.edit("missing", List.of())).isInstanceOf(SessionNotFoundException.class);
+	}
+	
+	@Test
+	void missingEditsLeaveTheSessionOpen() throws IOException {
+		DocumentSessionService service = service(10, 100);
+		DocumentResponse document = service.open("abc\ndef");
+		assertThatThrownBy(() -> service.edit(document.id(), null)).isInstanceOf(InvalidEditException.class);
+		assertThat(service.document(document.id()).message()).isEqualTo("ABC\nDEF");
+		
+		assertThatThrownBy(() -> service.edit(document.id(), Collections.singletonList(null)))
+			.isInstanceOf(InvalidEditException.class)
+			.hasMessageContaining("session closed");
+	}
+	
+	@Test
+	void transliteratorFailuresAreNotInvalidEdits() throws IOException {
+		DocumentSessionService service = service(10, 100);
+		DocumentResponse document = service.open("abc\ndef");
+		// A server error, so it isn't reported as the client's mistake and the session stays open
+		assertThatThrownBy(() -> service.edit(document.id(), List.of(new DocumentEdit(0, 0, "!"))))
+			.isExactlyInstanceOf(IllegalArgumentException.class);
+		assertThat(service.document(document.id()).message()).isEqualTo("ABC\nDEF");
+	}
+	
+}
@@ -0,0 +1,64 @@
+package com.ferreusveritas.shavianencoder.details.decoder;
+
+import com.ferreusveritas.shavianencoder.core.lexicon.Lexicon;
+import com.ferreusveritas.shavianencoder.core.lexicon.LexiconEntry;
+import com.ferreusveritas.shavianencoder.core.lexicon.ReverseEntry;
+import com.ferreusveritas.shavianencoder.core.lexicon.ReverseLexicon;
+import com.ferreusveritas.shavianencoder.core.model.UDPosTag;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ShavianDecoderTest {
+	
+	private static ShavianDecoder decoder(Map<String, List<LexiconEntry>> entries) {
+		return new ShavianDecoder(new ReverseLexicon(new Lexicon(entries)), Map.of("and", "𐑯"), "·");
+	}
+	
+	private static List<LexiconEntry> entry(String shavian, UDPosTag pos) {
+		return List.of(new LexiconEntry(shavian, EnumSet.of(pos)));
+	}
+	
+	@Test
+	void namesAndPossessives() {
+		ShavianDecoder decoder = decoder(Map.of(
+			"john", entry("𐑡𐑪𐑯", UDPosTag.PROPN),
+			"dog", entry("𐑛𐑪𐑜", UDPosTag.NOUN)
+		));
+		assertThat(decoder.decode("·𐑡𐑪𐑯 𐑯 𐑞 𐑛𐑪𐑜'𐑟.")).isEqualTo("John and 𐑞 dog's.");
+	}
+	
+	@Test
+	void emptyHeadwordsNeverWin() {
+		ShavianDecoder decoder = decoder(Map.of(
+			"", entry("𐑩", UDPosTag.DET),
+			"dog", entry("𐑛𐑪𐑜", UDPosTag.NOUN)
+		));
+		// Left in Shavian like any other spelling without a headword, rather than dropped or failing to capitalize
+		assertThat(decoder.decode("𐑩 𐑛𐑪𐑜")).isEqualTo("𐑩 dog");
+		assertThat(decoder.decode("·𐑩 ·𐑛𐑪𐑜")).isEqualTo("𐑩 Dog");
+		assertThat(decoder.candidates("𐑩")).isEmpty();
+	}
+	
+	@Test
+	void emptyHeadwordsGiveWayToOthers() {
+		ShavianDecoder decoder = decoder(Map.of(
+			"", entry("𐑩", UDPosTag.DET),
+			"a", entry("𐑩", UDPosTag.DET)
+		));
+		assertThat(decoder.decode("𐑩")).isEqualTo("a");
+		assertThat(decoder.decode("·𐑩")).isEqualTo("A");
+		assertThat(decoder.candidates("𐑩")).extracting(ReverseEntry::headword).containsExactly("a");
+	}
+	
+	@Test
+	void emptyAbbreviationsAreNotCapitalized() {
+		ShavianDecoder decoder = new ShavianDecoder(new ReverseLexicon(new Lexicon(Map.of())), Map.of("", "𐑩"), "·");
+		assertThat(decoder.decode("·𐑩")).isEmpty();
+	}
+	
+}
@@ -0,0 +1,217 @@
+package com.ferreusveritas.shavianencoder.details.dictionary;
+
+import com.ferreusveritas.shavianencoder.core.dictionary.DictionaryEntry;
+import com.ferreusveritas.shavianencoder.core.model.PTBPosTag;
+import com.ferreusveritas.shavianencoder.core.model.UDPosTag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** The byte level importer against the original regex parser, kept here as the reference */
+class ISLEDictionaryTest {
+	
+	private static final String SAMPLE = String.join("\n",
+		"read(vb,vbp) # ɹ i d # ɹ ɛ d #",
+		"read(vbd,vbn) # ɹ ɛ d #",
+		"smith(nnp_surname_0.001,nn) # s m ɪ ɵ #",
+		"mr(nnp,+abbreviation) # m ɪ s . t ɚ #",
+		"new_york(nnp) # n u # j ɔ ɹ k #",
+		"hello # h ə . l oʊ #",
+		"'tis(prp) # t ɪ z #",
+		"dogs'(nns) # d ɒ g z #",
+		"'n'(cc) # ə n #",
+		"the(dt)\t#  ð ə  #\tð i #",
+		"word() # w ɝ d #",
+		"france(_country:fr,nnp_place_0.5) # f ɹ æ n s #",
+		"of(in,of,punc) # ʌ v #",
+		"",
+		"   ",
+		"#",
+		"  lead(vb) # l i d #",
+		"tomato(nn) # t ə . m eɪ . t oʊ # t ə . m ɑ . t oʊ #",
+		"read(nn) # ɹ i d #"
+	);
+	
+	private static final String[] TAGS = { "nn", "nns", "vb", "vbd", "jj", "rb", "in", "dt", "nnp", "nnp_surname_0.25", "+abbreviation", "punc", "root:x" };
+	private static final String[] PHONEMES = { "p", "b", "t", "d", "k", "s", "z", "ʃ", "tʃ", "ɹ", "l", "m", "n", "ŋ", "ɪ", "i", "ɛ", "æ", "ə", "oʊ", "aɪ", "ɚ" };
+	
+	@TempDir
+	Path dir;
+	
+	@Test
+	void emptyInputIsAnEmptyDictionary() throws IOException {
+		assertThat(new ISLEDictionary(new BufferedReader(new StringReader(""))).words()).isEmpty();
+		assertThat(parse("")).isEmpty();
+		assertThat(parse("\n\n#\n")).isEmpty();
+	}
+	
+	@Test
+	void sampleMatchesTheRegexParser() throws IOException {
+		assertThat(parse(SAMPLE)).isEqualTo(reference(SAMPLE));
+		assertThat(parse(SAMPLE).keySet()).contains("'tis", "dogs'", "'n'").doesNotContain("new_york");
+	}
+	
+	@Test
+	void lineEndingsDoNotMatter() throws IOException {
+		assertThat(parse(SAMPLE.replace("\n", "\r\n") + "\r\n")).isEqualTo(reference(SAMPLE));
+	}
+	
+	@Test
+	void randomLinesAcrossChunksMatchTheRegexParser() throws IOException {
+		// Over a megabyte, so the importer splits it and has to merge each headword's entries back in file order
+		String text = randomDictionary(new Random(5), 30_000);
+		assertThat(text.length()).isGreaterThan(1 << 20);
+		Map<String, List<ReferenceEntry>> expected = reference(text);
+		assertThat(parse(text)).isEqualTo(expected);
+		
+		Path file = dir.resolve("dictionary.txt");
+		Files.writeString(file, text);
+		ISLEDictionary dictionary = new ISLEDictionary(file);
+		assertThat(toReference(dictionary.stream().collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue)))).isEqualTo(expected);
+	}
+	
+	@Test
+	void longPronunciationsAreKept() throws IOException {
+		// Past the 127 phonemes a byte of syllable ends held, in one syllable and spread over many
+		String text = String.join("\n",
+			"long(nn) #" + " ə".repeat(200) + " #",
+			"longer(nn) #" + " ɪ s .".repeat(999) + " ɪ s #",
+			"short(jj) # ʃ ɔ ɹ t #"
+		);
+		Map<String, List<ReferenceEntry>> parsed = parse(text);
+		assertThat(parsed).isEqualTo(reference(text));
+		assertThat(parsed.get("long").get(0).pronunciations().get(0).get(0)).hasSize(200);
+		assertThat(parsed.get("longer").get(0).pronunciations().get(0)).hasSize(1000);
+	}
+	
+	@Test
+	void pronunciationsTooLongToPackAreSkipped() throws IOException {
+		String text = String.join("\n",
+			"absurd(nn) #" + " ə".repeat(Short.MAX_VALUE + 1) + " #",
+			"short(jj) # ʃ ɔ ɹ t #"
+		);
+		assertThat(parse(text).keySet()).containsExactly("short");
+	}
+	
+	private static String randomDictionary(Random random, int lines) {
+		StringBuilder text = new StringBuilder();
+		for (int line = 0; line < lines; line++) {
+			text.append("w").append(random.nextInt(lines / 4)).append(random.nextInt(10) == 0 ? "'" : "");
+			if (random.nextBoolean()) {
+				List<String> tags = new ArrayList<>();
+				tags.add(TAGS[random.nextInt(8)]);
+				for (int i = random.nextInt(3); i > 0; i--) {
+					tags.add(TAGS[random.nextInt(TAGS.length)]);
+				}
+				text.append('(').append(String.join(",", tags)).append(')');
+			}
+			text.append(" #");
+			for (int p = random.nextInt(3) + 1; p > 0; p--) {
+				for (int s = random.nextInt(4) + 1; s > 0; s--) {
+					for (int n = random.nextInt(4) + 1; n > 0; n--) {
+						text.append(' ').append(PHONEMES[random.nextInt(PHONEMES.length)]);
+					}
+					text.append(s > 1 ? " ." : "");
+				}
+				text.append(" #");
+			}
+			text.append('\n');
+		}
+		return text.toString();
+	}
+	
+	private static Map<String, List<ReferenceEntry>> parse(String text) throws IOException {
+		ISLEDictionary dictionary = new ISLEDictionary(new BufferedReader(new StringReader("")));
+		return toReference(dictionary.importISLEDict(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8))));
+	}
+	
+	/** An entry with its pronunciations spelled out as phoneme strings, which is all the regex parser had */
+	private record ReferenceEntry(String headword, Set<UDPosTag> tags, List<List<List<String>>> pronunciations) {}
+	
+	private static Map<String, List<ReferenceEntry>> toReference(Map<String, List<DictionaryEntry>> dictionary) {
+		Map<String, List<ReferenceEntry>> result = new HashMap<>();
+		dictionary.forEach((headword, entries) -> result.put(headword, entries.stream()
+			.map(entry -> new ReferenceEntry(entry.headword(), entry.tags(), entry.pronunciations().stream()
+				.map(pronunciation -> pronunciation.syllables().stream()
+					.map(syllable -> List.copyOf(syllable.phonemes()))
+					.toList())
+				.toList()))
+			.toList()));
+		return result;
+	}
+	
+	/** The importer as it was before the byte level parser, line by line with regular expressions */
+	private static Map<String, List<ReferenceEntry>> reference(String text) {
+		Map<String, List<ReferenceEntry>> dictionary = new HashMap<>();
+		for (String line : text.split("\r?\n")) {
+			if (line.matches("^#|^\\s*$")) {
+				continue;
+			}
+			String[] parts = line.split("\\s+");
+			String[] rest = new String[parts.length - 1];
+			System.arraycopy(parts, 1, rest, 0, rest.length);
+			String[] headwordTags = parts[0].replace(")", "").split("\\(");
+			String headword = headwordTags[0];
+			String tagString = headwordTags.length > 1 ? headwordTags[1] : null;
+			String[] pronunciations = new String[rest.length - 2];
+			System.arraycopy(rest, 1, pronunciations, 0, pronunciations.length);
+			pronunciations = String.join(" ", pronunciations).split(" # ");
+			if (headword.contains("_")) {
+				continue;
+			}
+			List<List<List<String>>> spelled = new ArrayList<>();
+			for (String word : pronunciations) {
+				List<List<String>> syllables = new ArrayList<>();
+				for (String s : word.split(" \\. ")) {
+					syllables.add(List.of(s.split(" ")));
+				}
+				spelled.add(syllables);
+			}
+			dictionary.computeIfAbsent(headword, k -> new ArrayList<>()).add(new ReferenceEntry(headword, referenceTags(tagString), spelled));
+		}
+		return dictionary;
+	}
+	
+	private static Set<UDPosTag> referenceTags(String tagString) {
+		List<String> tags = tagString != null ? List.of(tagString.split(",")) : List.of();
+		boolean isAbbreviation = tags.contains("+abbreviation");
+		tags = tags.stream()
+			.map(pos -> pos.replaceAll("_\\d+\\.\\d+$", ""))
+			.filter(pos -> !pos.startsWith("+"))
+			.filter(pos -> !pos.startsWith("root:"))
+			.filter(pos -> !pos.contains("_root"))
+			.filter(pos -> !pos.startsWith("fw_misspelling:"))
+			.filter(pos -> !pos.equals("punc"))
+			.filter(pos -> !pos.equals("of"))
+			.map(pos -> pos.startsWith("nnp_") ? "nnp" : pos)
+			.map(pos -> pos.startsWith("nnps_") ? "nnps" : pos)
+			.map(pos -> pos.startsWith("_country") ? "nnp" : pos)
+			.toList();
+		Set<UDPosTag> posTags = EnumSet.noneOf(UDPosTag.class);
+		for (String tag : tags) {
+			posTags.add(PTBPosTag.of(tag).toUD());
+			if (isAbbreviation) {
+				posTags.add(UDPosTag.ABBR);
+			}
+		}
+		return posTags;
+	}
+	
+}
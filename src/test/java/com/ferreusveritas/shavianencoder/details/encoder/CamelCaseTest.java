@@ -0,0 +1,62 @@
+package com.ferreusveritas.shavianencoder.details.encoder;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** The hand written scanner against the regular expressions it replaced */
+class CamelCaseTest {
+	
+	private static final Pattern CAMEL_CASE = Pattern.compile("[A-Z]?[a-z]+[A-Z]+([a-zA-Z])+");
+	private static final Pattern SPLIT = Pattern.compile("(?<!(^|[A-Z]))(?=[A-Z])|(?<!^)(?=[A-Z][a-z])");
+	
+	@Test
+	void examples() {
+		assertThat(CamelCase.isCamelCase("camelCase")).isTrue();
+		assertThat(CamelCase.split("camelCase")).containsExactly("camel", "Case");
+		assertThat(CamelCase.isCamelCase("TitleCaseWord")).isTrue();
+		assertThat(CamelCase.split("TitleCaseWord")).containsExactly("Title", "Case", "Word");
+		assertThat(CamelCase.isCamelCase("parseHTMLString")).isTrue();
+		assertThat(CamelCase.split("parseHTMLString")).containsExactly("parse", "HTML", "String");
+		assertThat(CamelCase.isCamelCase("")).isFalse();
+		assertThat(CamelCase.isCamelCase("HTML")).isFalse();
+		assertThat(CamelCase.isCamelCase("word")).isFalse();
+		assertThat(CamelCase.isCamelCase("endsA")).isFalse();
+		assertThat(CamelCase.isCamelCase("it'sMe")).isFalse();
+	}
+	
+	@Test
+	void randomWordsMatchTheRegularExpressions() {
+		Random random = new Random(17);
+		String alphabet = "abcxyzABCXYZ'-1é";
+		for (int n = 0; n < 200_000; n++) {
+			StringBuilder word = new StringBuilder();
+			for (int i = random.nextInt(10); i > 0; i--) {
+				// Mostly letters, so that plenty of the words are camel case
+				word.append(alphabet.charAt(random.nextInt(random.nextInt(8) == 0 ? alphabet.length() : 12)));
+			}
+			check(word.toString());
+		}
+	}
+	
+	@Test
+	void longRunsWithoutWhitespace() {
+		check("a".repeat(10_000));
+		check("aB".repeat(5_000));
+		check("ab" + "Cd".repeat(4_999));
+		check("Ab" + "CD".repeat(4_999));
+		assertThat(CamelCase.split("ab" + "Cd".repeat(4_999))).hasSize(5_000);
+	}
+	
+	private static void check(String word) {
+		assertThat(CamelCase.isCamelCase(word)).as(word).isEqualTo(CAMEL_CASE.matcher(word).matches());
+		if (!word.isEmpty()) {
+			assertThat(CamelCase.split(word)).as(word).isEqualTo(List.of(SPLIT.split(word)));
+		}
+	}
+	
+}
@@ -0,0 +1,119 @@
+package com.ferreusveritas.shavianencoder.details.encoder;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SentenceReaderTest {
+	
+	@Test
+	void emptyInputHasNoSentences() {
+		assertThat(SentenceReader.split("")).isEmpty();
+	}
+	
+	@Test
+	void sentencesKeepTheirTrailingWhitespace() {
+		assertThat(SentenceReader.split("It's Bob's. \"Yes!\" he said.\nNext line e.g. this\n"))
+			.containsExactly("It's Bob's. ", "\"Yes!\" he said.\n", "Next line e.g. this\n");
+	}
+	
+	@Test
+	void chunkBoundariesDoNotChangeTheSplit() throws IOException {
+		String text = randomText(new Random(3), 50_000);
+		List<String> expected = SentenceReader.split(text);
+		assertThat(String.join("", expected)).isEqualTo(text);
+		for (int chunk : new int[] { 1, 7, 4096 }) {
+			assertThat(readAll(new ChunkedReader(text, chunk), SentenceReader.DEFAULT_MAX_LENGTH)).isEqualTo(expected);
+		}
+	}
+	
+	@Test
+	void overlongSentencesAreCutAtWhitespace() throws IOException {
+		String text = "word ".repeat(5_000);
+		List<String> sentences = readAll(new StringReader(text), 1_000);
+		assertThat(String.join("", sentences)).isEqualTo(text);
+		assertThat(sentences).allSatisfy(sentence -> {
+			assertThat(sentence.length()).isLessThanOrEqualTo(1_000);
+			assertThat(sentence).endsWith(" ");
+		});
+	}
+	
+	@Test
+	void runWithoutWhitespaceIsNotCutMidWord() throws IOException {
+		String run = "x".repeat(10_000);
+		String text = "Short one. " + run + run + " tail.";
+		for (int chunk : new int[] { 1, 4096 }) {
+			List<String> sentences = readAll(new ChunkedReader(text, chunk), SentenceReader.DEFAULT_MAX_LENGTH);
+			assertThat(sentences).containsExactly("Short one. ", run + run + " ", "tail.");
+		}
+		assertThat(SentenceReader.split(run)).containsExactly(run);
+	}
+	
+	@Test
+	void wordsBeyondTheHardLimitAreCutBetweenCodePoints() throws IOException {
+		String word = "a".repeat(999) + "😀".repeat(1_000);
+		List<String> sentences = readAll(new StringReader(word), 10);
+		assertThat(String.join("", sentences)).isEqualTo(word);
+		assertThat(sentences.get(0)).hasSize(999);
+		assertThat(sentences).allSatisfy(sentence -> {
+			assertThat(sentence.length()).isLessThanOrEqualTo(1_000);
+			assertThat(Character.isHighSurrogate(sentence.charAt(sentence.length() - 1))).isFalse();
+		});
+	}
+	
+	private static List<String> readAll(Reader input, int maxLength) throws IOException {
+		SentenceReader reader = new SentenceReader(input, maxLength);
+		List<String> sentences = new ArrayList<>();
+		String sentence;
+		while ((sentence = reader.next()) != null) {
+			sentences.add(sentence);
+		}
+		return sentences;
+	}
+	
+	private static String randomText(Random random, int length) {
+		String[] pieces = { "word", "Word", "it's", "Bob's", "'tis", "e.g.", ".", "!", "?", "…", "\"", "”", ")", " ", "  ", "\n", "\t" };
+		StringBuilder text = new StringBuilder();
+		while (text.length() < length) {
+			text.append(pieces[random.nextInt(pieces.length)]);
+		}
+		return text.toString();
+	}
+	
+	/** Hands out at most chunk characters per read, like a slow socket */
+	private static final class ChunkedReader extends Reader {
+		
+		private final String text;
+		private final int chunk;
+		private int position;
+		
+		ChunkedReader(String text, int chunk) {
+			this.text = text;
+			this.chunk = chunk;
+		}
+		
+		@Override
+		public int read(char[] buffer, int offset, int length) {
+			if (position == text.length()) {
+				return -1;
+			}
+			int count = Math.min(Math.min(length, chunk), text.length() - position);
+			text.getChars(position, position + count, buffer, offset);
+			position += count;
+			return count;
+		}
+		
+		@Override
+		public void close() {
+		}
+		
+	}
+	
+}
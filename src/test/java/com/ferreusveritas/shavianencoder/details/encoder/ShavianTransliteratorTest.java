@@ -0,0 +1,249 @@
+package com.ferreusveritas.shavianencoder.details.encoder;
+
+import com.ferreusveritas.shavianencoder.core.lexicon.ContractionIndex;
+import com.ferreusveritas.shavianencoder.core.lexicon.Lexicon;
+import com.ferreusveritas.shavianencoder.core.lexicon.LexiconEntry;
+import com.ferreusveritas.shavianencoder.core.model.SpeechEntity;
+import com.ferreusveritas.shavianencoder.core.model.TokenExplanation;
+import com.ferreusveritas.shavianencoder.core.model.UDPosTag;
+import com.ferreusveritas.shavianencoder.details.cache.LruCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** The transliterator with the real tagger models over a small made up lexicon */
+class ShavianTransliteratorTest {
+	
+	private static SpeechTaggerImpl speechTagger;
+	
+	@BeforeAll
+	static void loadModels() {
+		speechTagger = new SpeechTaggerImpl(2, new SimpleMeterRegistry());
+	}
+	
+	private static final Map<String, List<LexiconEntry>> ENTRIES = Map.of(
+		"my", List.of(entry("𐑥𐑲", UDPosTag.PRON)),
+		"uncle's", List.of(entry("𐑳𐑙𐑒𐑩𐑤𐑟", UDPosTag.NOUN)),
+		"house", List.of(entry("𐑣𐑬𐑕", UDPosTag.NOUN))
+	);
+	
+	private static LexiconEntry entry(String shavian, UDPosTag pos) {
+		return new LexiconEntry(shavian, EnumSet.of(pos));
+	}
+	
+	/** Sentences the fast path should mostly take, and ones with names, heteronyms and unknown words it must not */
+	private static final List<String> CORPUS = List.of(
+		"Apple pie is good.",
+		"The cat sat on the mat.",
+		"It is a good day.",
+		"I read the book yesterday and I will read it again.",
+		"the dog saw the cat.",
+		"A cat and a dog are in the house.",
+		"Smith saw the dog.",
+		"We saw Smith in the house.",
+		"Good dogs sat on the mat.",
+		"House prices are going up.",
+		"Dog owners read the news.",
+		"Cat food is good for the cat.",
+		"They said it's a good day, didn't they?",
+		"My uncle's house is on the hill.",
+		"The dogs' house is in the garden.",
+		"In the house the cat sat.",
+		"Mat makers are good at mats.",
+		"Day by day the dog is good.",
+		"He said that the day is good.",
+		"Xylophones are unknown here.",
+		"Hill walking is good for a dog.",
+		"Garden parties are good in the day.",
+		"News of the day: the cat sat, the dog saw.",
+		"And then the cat saw the dog.",
+		"Is it good? It is.",
+		"It is 5 % of the food."
+	);
+	
+	private static final Map<String, UDPosTag> CORPUS_WORDS = Map.ofEntries(
+		Map.entry("the", UDPosTag.DET), Map.entry("a", UDPosTag.DET), Map.entry("my", UDPosTag.PRON),
+		Map.entry("it", UDPosTag.PRON), Map.entry("i", UDPosTag.PRON), Map.entry("we", UDPosTag.PRON),
+		Map.entry("they", UDPosTag.PRON), Map.entry("he", UDPosTag.PRON), Map.entry("that", UDPosTag.SCONJ),
+		Map.entry("and", UDPosTag.CCONJ), Map.entry("on", UDPosTag.ADP), Map.entry("in", UDPosTag.ADP),
+		Map.entry("for", UDPosTag.ADP), Map.entry("at", UDPosTag.ADP), Map.entry("by", UDPosTag.ADP),
+		Map.entry("of", UDPosTag.ADP), Map.entry("is", UDPosTag.AUX), Map.entry("are", UDPosTag.AUX),
+		Map.entry("will", UDPosTag.AUX), Map.entry("good", UDPosTag.ADJ), Map.entry("then", UDPosTag.ADV),
+		Map.entry("again", UDPosTag.ADV), Map.entry("up", UDPosTag.ADV), Map.entry("here", UDPosTag.ADV),
+		Map.entry("yesterday", UDPosTag.NOUN), Map.entry("apple", UDPosTag.NOUN), Map.entry("pie", UDPosTag.NOUN),
+		Map.entry("cat", UDPosTag.NOUN), Map.entry("dog", UDPosTag.NOUN), Map.entry("dogs", UDPosTag.NOUN),
+		Map.entry("mat", UDPosTag.NOUN), Map.entry("mats", UDPosTag.NOUN), Map.entry("day", UDPosTag.NOUN),
+		Map.entry("book", UDPosTag.NOUN), Map.entry("house", UDPosTag.NOUN), Map.entry("prices", UDPosTag.NOUN),
+		Map.entry("owners", UDPosTag.NOUN), Map.entry("news", UDPosTag.NOUN), Map.entry("food", UDPosTag.NOUN),
+		Map.entry("hill", UDPosTag.NOUN), Map.entry("garden", UDPosTag.NOUN), Map.entry("parties", UDPosTag.NOUN),
+		Map.entry("makers", UDPosTag.NOUN), Map.entry("sat", UDPosTag.VERB), Map.entry("saw", UDPosTag.VERB),
+		Map.entry("said", UDPosTag.VERB), Map.entry("going", UDPosTag.VERB), Map.entry("walking", UDPosTag.VERB),
+		Map.entry("uncle", UDPosTag.NOUN), Map.entry("unknown", UDPosTag.ADJ), Map.entry("ebay", UDPosTag.NOUN),
+		Map.entry("it's", UDPosTag.PRON), Map.entry("didn't", UDPosTag.AUX)
+	);
+	
+	private static Map<String, List<LexiconEntry>> corpusEntries() {
+		Map<String, List<LexiconEntry>> entries = new HashMap<>();
+		CORPUS_WORDS.forEach((word, pos) -> entries.put(word, List.of(entry(spell(word), pos))));
+		entries.put("read", List.of(entry("𐑮𐑰𐑛", UDPosTag.VERB), entry("𐑮𐑧𐑛", UDPosTag.VERB)));
+		// Spelled out only when it isn't tagged as a symbol, which the model tags it
+		entries.put("%", List.of(entry("𐑐𐑼𐑕𐑧𐑯𐑑", UDPosTag.NOUN)));
+		entries.put("smith", List.of(entry(spell("smith"), UDPosTag.PROPN), entry(spell("smith"), UDPosTag.NOUN)));
+		return entries;
+	}
+	
+	@Test
+	void fastTaggingMatchesTheModels() throws IOException {
+		Map<String, List<LexiconEntry>> entries = corpusEntries();
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		ShavianTransliterator models = transliterator(entries, false, new SimpleMeterRegistry());
+		ShavianTransliterator fast = transliterator(entries, true, meterRegistry);
+		for (String sentence : CORPUS) {
+			assertThat(fast.transliterate(sentence)).as(sentence).isEqualTo(models.transliterate(sentence));
+		}
+		// Most of the corpus is made of unambiguous words, so the comparison has to have covered the fast path
+		assertThat(meterRegistry.counter("shavian.sentences.untagged").count()).isGreaterThanOrEqualTo(10);
+		
+		// The documented loss: the model tags a lowercase word a proper noun from context alone
+		String lowercaseName = "we sat on ebay.";
+		String dotted = models.transliterate(lowercaseName);
+		assertThat(dotted).contains("·" + spell("ebay"));
+		assertThat(fast.transliterate(lowercaseName)).isEqualTo(dotted.replace("·", ""));
+	}
+	
+	@Test
+	void parallelMatchesSequential() throws IOException {
+		Random random = new Random(18);
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < 150; i++) {
+			text.append(CORPUS.get(random.nextInt(CORPUS.size()))).append(random.nextInt(10) == 0 ? "\n\n" : " ");
+			if (i == 75) {
+				text.append("ab".repeat(5_000)).append(". ");
+			}
+		}
+		Map<String, List<LexiconEntry>> entries = corpusEntries();
+		ShavianTransliterator sequential = transliterator(entries, false, new SimpleMeterRegistry());
+		// More workers than tagger engines, so workers wait for engines as managed blockers
+		ForkJoinPool pool = new ForkJoinPool(8);
+		try {
+			ShavianTransliterator parallel = transliterator(entries, false, pool, 1, new SimpleMeterRegistry());
+			
+			assertThat(parallel.transliterate(text.toString())).isEqualTo(sequential.transliterate(text.toString()));
+			List<TokenExplanation> parallelExplanations = new ArrayList<>();
+			List<TokenExplanation> sequentialExplanations = new ArrayList<>();
+			parallel.transliterate(text.toString(), parallelExplanations);
+			sequential.transliterate(text.toString(), sequentialExplanations);
+			assertThat(parallelExplanations).isEqualTo(sequentialExplanations);
+			
+			assertThat(parallel.transliterate("")).isEmpty();
+			assertThat(parallel.transliterate("One sentence only.")).isEqualTo(sequential.transliterate("One sentence only."));
+		} finally {
+			pool.shutdown();
+		}
+	}
+	
+	@Test
+	void contractionIndexMatchesTheDictionaryScan() throws IOException {
+		Map<String, List<LexiconEntry>> entries = corpusEntries();
+		for (String word : List.of("'tis", "o'clock", "rock'n'roll", "dogs'", "'n'")) {
+			entries.put(word, List.of(entry(spell(word), UDPosTag.NOUN)));
+		}
+		Lexicon lexicon = new Lexicon(entries);
+		// What the transliterator did before the index, a lookup of the joined word in the dictionary
+		ContractionIndex scan = new ContractionIndex(Set.of()) {
+			@Override
+			public boolean contains(String head, String tail) {
+				return !entries.getOrDefault((head + "'" + tail).toLowerCase(), List.of()).isEmpty();
+			}
+		};
+		ShavianTransliterator indexed = transliterator(lexicon, ContractionIndex.of(lexicon), true, ForkJoinPool.commonPool(), 0, new SimpleMeterRegistry());
+		ShavianTransliterator scanned = transliterator(lexicon, scan, true, ForkJoinPool.commonPool(), 0, new SimpleMeterRegistry());
+		
+		List<String> texts = new ArrayList<>(CORPUS);
+		texts.addAll(List.of(
+			"", "'", "''", "'tis the season.", "Dogs' day.", "It's ten o'clock.", "Rock'n'roll didn't stop.",
+			"DIDN'T IT'S", "didn'", "'t", "'didn't'", "It's'", "'It's", "rock 'n' roll"
+		));
+		texts.add("didn't".repeat(1_667));
+		texts.add("a'".repeat(5_000));
+		for (String text : texts) {
+			String label = text.length() > 40 ? text.substring(0, 40) + "..." : text;
+			assertThat(indexed.transliterate(text)).as(label).isEqualTo(scanned.transliterate(text));
+		}
+	}
+	
+	/** A made up Shavian spelling, one letter per letter */
+	private static String spell(String word) {
+		StringBuilder shavian = new StringBuilder();
+		word.chars()
+			.filter(Character::isLetter)
+			.forEach(c -> shavian.appendCodePoint(0x10450 + (c - 'a') % 48));
+		return shavian.toString();
+	}
+	
+	private static ShavianTransliterator transliterator(Map<String, List<LexiconEntry>> entries, boolean fastTagging) throws IOException {
+		return transliterator(entries, fastTagging, new SimpleMeterRegistry());
+	}
+	
+	private static ShavianTransliterator transliterator(Map<String, List<LexiconEntry>> entries, boolean fastTagging, MeterRegistry meterRegistry) throws IOException {
+		return transliterator(entries, fastTagging, ForkJoinPool.commonPool(), 0, meterRegistry);
+	}
+	
+	private static ShavianTransliterator transliterator(
+		Map<String, List<LexiconEntry>> entries,
+		boolean fastTagging,
+		ForkJoinPool parallelPool,
+		int parallelThreshold,
+		MeterRegistry meterRegistry
+	) throws IOException {
+		Lexicon lexicon = new Lexicon(entries);
+		return transliterator(lexicon, ContractionIndex.of(lexicon), fastTagging, parallelPool, parallelThreshold, meterRegistry);
+	}
+	
+	private static ShavianTransliterator transliterator(
+		Lexicon lexicon,
+		ContractionIndex contractions,
+		boolean fastTagging,
+		ForkJoinPool parallelPool,
+		int parallelThreshold,
+		MeterRegistry meterRegistry
+	) throws IOException {
+		return new ShavianTransliterator(
+			speechTagger,
+			new ShawMappingData(),
+			lexicon,
+			contractions,
+			new LruCache<>(0),
+			new LruCache<>(0),
+			fastTagging,
+			parallelPool,
+			parallelThreshold,
+			meterRegistry
+		);
+	}
+	
+	@Test
+	void possessiveOfAnUnknownStemEnds() throws IOException {
+		ShavianTransliterator transliterator = transliterator(ENTRIES, false);
+		// Only the possessive is in the lexicon, and the lemmatizer gives the possessive back as the lemma
+		assertThat(transliterator.transliterateToken(new SpeechEntity("uncle's", UDPosTag.NOUN, "uncle's")).shavian())
+			.isEqualTo("uncle'𐑟");
+		assertThat(transliterator.transliterateToken(new SpeechEntity("dogs'", UDPosTag.NOUN, "dogs'")).shavian())
+			.isEqualTo("dogs𐑟'");
+		assertThat(transliterator.transliterate("My uncle's house.")).isNotBlank();
+	}
+	
+}
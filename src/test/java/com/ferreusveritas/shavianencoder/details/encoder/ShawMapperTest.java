@@ -0,0 +1,86 @@
+package com.ferreusveritas.shavianencoder.details.encoder;
+
+import com.ferreusveritas.shavianencoder.core.dictionary.Pronunciation;
+import com.ferreusveritas.shavianencoder.core.dictionary.Syllable;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ShawMapperTest {
+	
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final ShawMapper mapper = new ShawMapper(new ShawMappingData().getIpa2shaw(), meterRegistry);
+	
+	@Test
+	void unmappedIpaIsPassedThroughAndCounted() {
+		assertThat(mapper.map(pronunciation("k", "ʔ", "æ", "t"))).isEqualTo("𐑒ʔ𐑨𐑑");
+		assertThat(mapper.map(pronunciation("ʔ", "ʔ"))).isEqualTo("ʔʔ");
+		
+		assertThat(meterRegistry.get("shavian.mapper.unmapped").tag("ipa", "ʔ").counter().count()).isEqualTo(3);
+		assertThat(meterRegistry.find("shavian.mapper.unmapped").counters()).hasSize(1);
+	}
+	
+	@Test
+	void stressMarksAreIgnored() {
+		assertThat(mapper.map(pronunciation("ˈk", "æ", "ˌt"))).isEqualTo("𐑒𐑨𐑑");
+		assertThat(meterRegistry.find("shavian.mapper.unmapped").counters()).isEmpty();
+	}
+	
+	@Test
+	void packedIdsMapLikeTheirStrings() {
+		Map<String, String> ipa2shaw = new ShawMappingData().getIpa2shaw();
+		// Every mapped symbol, plus stress marks and symbols with no mapping, in syllables up to 300 phonemes long
+		List<String> symbols = new ArrayList<>(ipa2shaw.keySet());
+		symbols.addAll(List.of("ˈ", "ˌ", "˺", "ˈɪ", "ʔ", "x"));
+		Random random = new Random(22);
+		for (int n = 0; n < 5_000; n++) {
+			List<List<String>> syllables = new ArrayList<>();
+			for (int s = random.nextInt(4) + 1; s > 0; s--) {
+				List<String> phonemes = new ArrayList<>();
+				for (int p = n % 100 == 0 ? 300 : random.nextInt(5) + 1; p > 0; p--) {
+					phonemes.add(symbols.get(random.nextInt(symbols.size())));
+				}
+				syllables.add(phonemes);
+			}
+			Pronunciation packed = new Pronunciation(syllables.stream().map(Syllable::new).toList());
+			assertThat(packed.syllables().stream().map(Syllable::phonemes).toList()).isEqualTo(syllables);
+			assertThat(mapper.map(packed)).as(syllables.toString()).isEqualTo(greedy(ipa2shaw, syllables));
+		}
+	}
+	
+	/** Each syllable's phonemes joined up, then the longest pattern taken at each position, the plain string way */
+	private static String greedy(Map<String, String> ipa2shaw, List<List<String>> syllables) {
+		StringBuilder out = new StringBuilder();
+		for (List<String> syllable : syllables) {
+			String ipa = String.join("", syllable).replaceAll("[ˈˌ˺]", "");
+			int i = 0;
+			while (i < ipa.length()) {
+				String longest = null;
+				for (String pattern : ipa2shaw.keySet()) {
+					if (ipa.startsWith(pattern, i) && (longest == null || pattern.length() > longest.length())) {
+						longest = pattern;
+					}
+				}
+				if (longest != null) {
+					out.append(ipa2shaw.get(longest));
+					i += longest.length();
+				} else {
+					out.appendCodePoint(ipa.codePointAt(i));
+					i += Character.charCount(ipa.codePointAt(i));
+				}
+			}
+		}
+		return out.toString();
+	}
+	
+	private static Pronunciation pronunciation(String... phonemes) {
+		return new Pronunciation(List.of(new Syllable(List.of(phonemes))));
+	}
+	
+}
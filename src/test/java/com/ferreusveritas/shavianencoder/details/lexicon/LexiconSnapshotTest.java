@@ -0,0 +1,79 @@
+package com.ferreusveritas.shavianencoder.details.lexicon;
+
+import com.ferreusveritas.shavianencoder.core.lexicon.Lexicon;
+import com.ferreusveritas.shavianencoder.core.lexicon.LexiconEntry;
+import com.ferreusveritas.shavianencoder.core.model.UDPosTag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LexiconSnapshotTest {
+	
+	@TempDir
+	Path dir;
+	
+	private final Map<String, List<LexiconEntry>> entries = Map.of(
+		"read", List.of(new LexiconEntry("𐑮𐑰𐑛", Set.of(UDPosTag.VERB)), new LexiconEntry("𐑮𐑧𐑛", Set.of(UDPosTag.VERB, UDPosTag.ADJ))),
+		"red", List.of(new LexiconEntry("𐑮𐑧𐑛", Set.of(UDPosTag.ADJ, UDPosTag.NOUN))),
+		"bob", List.of(new LexiconEntry("𐑚𐑪𐑚", Set.of(UDPosTag.PROPN))),
+		"don't", List.of(new LexiconEntry("𐑛𐑴𐑯𐑑", Set.of(UDPosTag.AUX))),
+		"'tis", List.of(new LexiconEntry("𐑑𐑦𐑟", Set.of())),
+		"", List.of()
+	);
+	
+	@Test
+	void loadsWhatWasWritten() throws IOException {
+		Lexicon lexicon = new Lexicon(entries);
+		LexiconSnapshot snapshot = new LexiconSnapshot(dir.resolve("lexicon.snapshot"), 42);
+		snapshot.write(lexicon);
+		
+		Lexicon loaded = snapshot.load().orElseThrow();
+		assertThat(loaded.size()).isEqualTo(lexicon.size());
+		Map<String, List<LexiconEntry>> visited = new HashMap<>();
+		loaded.forEach(visited::put);
+		assertThat(visited).isEqualTo(entries);
+		for (String word : entries.keySet()) {
+			assertThat(loaded.getEntries(word)).isEqualTo(entries.get(word));
+			assertThat(loaded.isUnambiguous(word)).isEqualTo(lexicon.isUnambiguous(word));
+		}
+		assertThat(loaded.getEntries("missing")).isEmpty();
+	}
+	
+	@Test
+	void fileCanBeReplacedAfterLoading() throws IOException {
+		Path file = dir.resolve("lexicon.snapshot");
+		LexiconSnapshot snapshot = new LexiconSnapshot(file, 42);
+		snapshot.write(new Lexicon(entries));
+		assertThat(snapshot.load()).isPresent();
+		
+		snapshot.write(new Lexicon(Map.of("red", entries.get("red"))));
+		assertThat(snapshot.load()).hasValueSatisfying(lexicon -> assertThat(lexicon.size()).isEqualTo(1));
+		Files.delete(file);
+	}
+	
+	@Test
+	void staleOrCorruptSnapshotsAreRebuilt() throws IOException {
+		Path file = dir.resolve("lexicon.snapshot");
+		new LexiconSnapshot(file, 42).write(new Lexicon(entries));
+		assertThat(new LexiconSnapshot(file, 43).load()).isEmpty();
+		
+		byte[] bytes = Files.readAllBytes(file);
+		bytes[bytes.length - 3] ^= 1;
+		Files.write(file, bytes);
+		assertThat(new LexiconSnapshot(file, 42).load()).isEmpty();
+		
+		Lexicon rebuilt = new LexiconSnapshot(file, 42).loadOrBuild(() -> new Lexicon(entries));
+		assertThat(rebuilt.size()).isEqualTo(entries.size());
+		assertThat(new LexiconSnapshot(file, 42).load()).isPresent();
+	}
+	
+}